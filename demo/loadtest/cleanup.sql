@@ -0,0 +1,4 @@
+-- Removes the load-test users and everything they submitted.
+DELETE FROM pac_daily_user_rollup WHERE user_id IN (SELECT id FROM users WHERE username ~ '^lt[0-9]{4}$');
+DELETE FROM pac WHERE user_id IN (SELECT id FROM users WHERE username ~ '^lt[0-9]{4}$');
+DELETE FROM users WHERE username ~ '^lt[0-9]{4}$';
@@ -0,0 +1,10 @@
+-- Load-test users lt0001..lt2100 (password "loadtest"), one per k6 VU.
+-- MODERATOR can open the productivity streams and read overall productivity.
+-- Run against a disposable database only; remove with cleanup.sql.
+CREATE EXTENSION IF NOT EXISTS pgcrypto;
+
+WITH hash AS (SELECT crypt('loadtest', gen_salt('bf', 10)) AS value)
+INSERT INTO users (username, password, role)
+SELECT 'lt' || lpad(n::text, 4, '0'), hash.value, 'MODERATOR'
+FROM generate_series(1, 2100) AS n, hash
+ON CONFLICT (username) DO NOTHING;
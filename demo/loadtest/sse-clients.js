@@ -0,0 +1,228 @@
+/* ==========================================================================
+ * SSE Load Test (k6)
+ *
+ * PURPOSE: Holds N concurrent productivity SSE clients while PAC submissions
+ *          fan out to them and dashboard reads run alongside, then reports
+ *          the server's thread counts and latency percentiles
+ * USAGE: see loadtest/README.md; run once per thread mode and compare
+ *
+ * SCENARIOS:
+ * - sse_clients: ramps to SSE_CLIENTS VUs, each holding one stream open
+ * - submitters:  SUBMIT_RATE PAC submissions per second, each fanned out to
+ *                every stream
+ * - readers:     READ_RATE overall-productivity reads per second
+ *
+ * @note Each VU logs in as its own user (USER_PREFIX + zero-padded VU id):
+ *       sessions are limited to one per user, so clients cannot share one
+ * @note k6 cannot read a stream incrementally; each SSE request is held
+ *       until STREAM_HOLD and then reported as a timeout, which is expected.
+ *       Event delivery latency is taken from the server's
+ *       productivity.sse.send.latency histogram instead
+ * ========================================================================== */
+
+import http from 'k6/http';
+import encoding from 'k6/encoding';
+import exec from 'k6/execution';
+import { check, fail, sleep } from 'k6';
+import { Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'https://localhost:8443';
+const SSE_CLIENTS = parseInt(__ENV.SSE_CLIENTS || '2000', 10);
+const SUBMITTERS = parseInt(__ENV.SUBMITTERS || '50', 10);
+const SUBMIT_RATE = parseInt(__ENV.SUBMIT_RATE || '20', 10);
+const READERS = parseInt(__ENV.READERS || '20', 10);
+const READ_RATE = parseInt(__ENV.READ_RATE || '20', 10);
+const RAMP = __ENV.RAMP || '1m';
+const DURATION = __ENV.DURATION || '5m';
+const STREAM = __ENV.STREAM || '/api/overall-productivity-stream';
+const STREAM_HOLD = __ENV.STREAM_HOLD || '15m';
+const USER_PREFIX = __ENV.USER_PREFIX || 'lt';
+const USER_PASSWORD = __ENV.USER_PASSWORD || 'loadtest';
+const ADMIN_USER = __ENV.ADMIN_USER || 'admin';
+const ADMIN_PASSWORD = __ENV.ADMIN_PASSWORD;
+const SCRAPE_USER = __ENV.SCRAPE_USER || 'prometheus';
+const SCRAPE_PASSWORD = __ENV.SCRAPE_PASSWORD;
+
+const loginDuration = new Trend('login_duration', true);
+
+export const options = {
+    insecureSkipTLSVerify: true,
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    // Loose limits whose only job is to list the per-endpoint percentiles in the summary
+    thresholds: {
+        'http_req_duration{name:submit}': ['p(99)<10000'],
+        'http_req_duration{name:overall}': ['p(99)<10000'],
+    },
+    scenarios: {
+        sse_clients: {
+            executor: 'ramping-vus',
+            exec: 'holdStream',
+            startVUs: 0,
+            stages: [
+                { duration: RAMP, target: SSE_CLIENTS },
+                { duration: DURATION, target: SSE_CLIENTS },
+            ],
+            gracefulRampDown: '0s',
+            gracefulStop: '0s',
+        },
+        submitters: {
+            executor: 'constant-arrival-rate',
+            exec: 'submit',
+            rate: SUBMIT_RATE,
+            timeUnit: '1s',
+            startTime: RAMP,
+            duration: DURATION,
+            preAllocatedVUs: SUBMITTERS,
+            maxVUs: SUBMITTERS,
+        },
+        readers: {
+            executor: 'constant-arrival-rate',
+            exec: 'read',
+            rate: READ_RATE,
+            timeUnit: '1s',
+            startTime: RAMP,
+            duration: DURATION,
+            preAllocatedVUs: READERS,
+            maxVUs: READERS,
+        },
+    },
+};
+
+/* --------------------------------------------------------------------------
+ * Session Handling
+ * -------------------------------------------------------------------------- */
+
+let csrfToken = null;
+
+/**
+ * Logs in through the form login once per VU and keeps the page's CSRF token
+ * @note The cookie jar is per VU, so the session sticks to this VU
+ */
+function login(username, password) {
+    const started = Date.now();
+    const form = http.get(`${BASE_URL}/login`, { tags: { name: 'login' } });
+    const token = form.html().find('input[name="_csrf"]').attr('value');
+    const res = http.post(`${BASE_URL}/login`,
+        { username: username, password: password, _csrf: token },
+        { redirects: 0, tags: { name: 'login' } });
+    const location = res.headers['Location'] || '';
+    if (res.status !== 302 || location.includes('error')) {
+        fail(`login failed for ${username} (status ${res.status})`);
+    }
+    loginDuration.add(Date.now() - started);
+
+    const page = http.get(`${BASE_URL}/packmed`, { tags: { name: 'packmed' } });
+    csrfToken = page.html().find('meta[name="_csrf"]').attr('content');
+}
+
+function ensureLoggedIn() {
+    if (csrfToken === null) {
+        const id = String(exec.vu.idInTest).padStart(4, '0');
+        login(`${USER_PREFIX}${id}`, USER_PASSWORD);
+    }
+}
+
+/* --------------------------------------------------------------------------
+ * Scenarios
+ * -------------------------------------------------------------------------- */
+
+export function holdStream() {
+    ensureLoggedIn();
+    // Returns only when STREAM_HOLD passes or the server closes the stream
+    http.get(`${BASE_URL}${STREAM}`, {
+        timeout: STREAM_HOLD,
+        responseType: 'none',
+        headers: { Accept: 'text/event-stream' },
+        tags: { name: 'sse' },
+    });
+    sleep(1);
+}
+
+export function submit() {
+    ensureLoggedIn();
+    const start = new Date(Date.now() - 30 * 60 * 1000).toISOString().substring(0, 19);
+    const end = new Date().toISOString().substring(0, 19);
+    const res = http.post(`${BASE_URL}/submit-questions`, JSON.stringify({
+        store: 'LOADTEST',
+        startTime: start,
+        endTime: end,
+        pouchesChecked: String(20 + Math.floor(Math.random() * 40)),
+    }), {
+        headers: {
+            'Content-Type': 'application/json',
+            'X-CSRF-TOKEN': csrfToken,
+            'Idempotency-Key': `${exec.vu.idInTest}-${exec.scenario.iterationInTest}-${Date.now()}`,
+        },
+        tags: { name: 'submit' },
+    });
+    check(res, { 'submit accepted': r => r.status === 200 });
+}
+
+export function read() {
+    ensureLoggedIn();
+    const res = http.get(`${BASE_URL}/api/overall-productivity`, { tags: { name: 'overall' } });
+    check(res, { 'read ok': r => r.status === 200 });
+}
+
+/* --------------------------------------------------------------------------
+ * Server-Side Results
+ * -------------------------------------------------------------------------- */
+
+/**
+ * Reads the server's thread counts and histogram percentiles via the actuator
+ * @note Needs ADMIN_PASSWORD; skipped without it. The percentiles also need
+ *       SCRAPE_PASSWORD, since /actuator/prometheus only accepts the scrape user
+ */
+export function teardown() {
+    if (!ADMIN_PASSWORD) {
+        console.warn('ADMIN_PASSWORD not set, skipping server-side thread and latency figures');
+        return;
+    }
+    login(ADMIN_USER, ADMIN_PASSWORD);
+    for (const metric of ['jvm.threads.live', 'jvm.threads.peak', 'jvm.threads.daemon']) {
+        const res = http.get(`${BASE_URL}/actuator/metrics/${metric}`);
+        if (res.status === 200) {
+            console.log(`${metric}: ${res.json('measurements.0.value')}`);
+        }
+    }
+    if (!SCRAPE_PASSWORD) {
+        console.warn('SCRAPE_PASSWORD not set, skipping server-side latency percentiles');
+        return;
+    }
+    const scrape = http.get(`${BASE_URL}/actuator/prometheus`, {
+        headers: { Authorization: `Basic ${encoding.b64encode(`${SCRAPE_USER}:${SCRAPE_PASSWORD}`)}` },
+    });
+    if (scrape.status !== 200) {
+        console.warn(`prometheus scrape failed with status ${scrape.status}`);
+        return;
+    }
+    for (const name of ['productivity_sse_send_latency_seconds', 'http_server_requests_seconds', 'pac_submit_seconds']) {
+        const p99 = quantileFromBuckets(scrape.body, name, 0.99);
+        console.log(`${name} p99 since start: ${p99 === null ? 'n/a' : (p99 * 1000).toFixed(1) + 'ms'}`);
+    }
+}
+
+/**
+ * Estimates a quantile from Prometheus histogram buckets summed over all tags
+ * @returns Upper bound of the bucket holding the quantile, null if absent
+ */
+function quantileFromBuckets(body, name, quantile) {
+    const pattern = new RegExp(`^${name}_bucket\\{[^}]*le="([^"]+)"[^}]*\\} (\\S+)$`, 'gm');
+    const buckets = new Map();
+    let match;
+    while ((match = pattern.exec(body)) !== null) {
+        const le = match[1] === '+Inf' ? Infinity : parseFloat(match[1]);
+        buckets.set(le, (buckets.get(le) || 0) + parseFloat(match[2]));
+    }
+    const bounds = [...buckets.keys()].sort((a, b) => a - b);
+    const total = buckets.get(Infinity);
+    if (!total) {
+        return null;
+    }
+    for (const bound of bounds) {
+        if (buckets.get(bound) >= total * quantile) {
+            return bound;
+        }
+    }
+    return null;
+}
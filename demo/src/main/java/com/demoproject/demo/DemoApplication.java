@@ -6,7 +6,9 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.retry.annotation.EnableRetry;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main application class for the Demo project.
@@ -18,6 +20,8 @@ import org.springframework.scheduling.annotation.EnableAsync;
 @EnableJpaRepositories("com.demoproject.demo.repository")
 @EnableCaching
 @EnableAsync
+@EnableRetry
+@EnableScheduling
 public class DemoApplication {
 
     /**
@@ -1,12 +1,29 @@
 package com.demoproject.demo.config;
 
+import com.demoproject.demo.connections.ClusterCacheManager;
+import com.demoproject.demo.connections.JdbcCacheStore;
+import com.demoproject.demo.connections.PgNotificationBus;
+import com.demoproject.demo.pacmedproductivity.ProductivityTimeseriesDTO;
+import com.demoproject.demo.pacmedproductivity.StoreProductivityDTO;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,33 +31,110 @@ import org.slf4j.LoggerFactory;
 @Configuration
 @EnableCaching
 public class CacheConfig {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
-    
+
+    // Spec used for a cache without a cache.spec.<name> property
+    static final String DEFAULT_SPEC = "maximumSize=100,expireAfterWrite=30m";
+
+    // Built-in per-cache specs; list-valued caches are bounded by weight (~ one unit per row)
+    private static final Map<String, String> SPECS = Map.of(
+        "productivityTimeseries", "maximumWeight=20000,expireAfterWrite=30m",
+        "storeProductivity", "maximumWeight=20000,expireAfterWrite=30m",
+        "wellcaData", "maximumSize=500,expireAfterAccess=30m",
+        "wellcaRangeData", "maximumWeight=10000,expireAfterWrite=30m"
+    );
+
+    /**
+     * Builds every cache from its own Caffeine spec and binds it to Micrometer.
+     *
+     * @param environment Source of cache.spec.&lt;name&gt; overrides
+     * @param meterRegistry Registry for cache.gets, cache.evictions, cache.load.duration etc.
+     * @param bus Cross-node bus, present when cluster.bus.enabled=true
+     * @param sharedStore Shared L2 tier, present when cache.l2.enabled=true
+     * @param clusteredNames Caches whose evictions reach every node (and that use L2)
+     * @note A spec is a CaffeineSpec string, e.g.
+     *       cache.spec.wellcaRangeData=maximumWeight=5000,expireAfterAccess=10m
+     * @note Stats are always recorded; metrics carry the same tags as
+     *       Boot's cache metrics so both bindings name one meter
+     * @note Wrapped in ClusterCacheManager when the bus or the L2 tier is enabled
+     */
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(Environment environment, MeterRegistry meterRegistry,
+                                     ObjectProvider<PgNotificationBus> bus,
+                                     ObjectProvider<JdbcCacheStore> sharedStore,
+                                     @Value("${cache.cluster.names:wellcaData,wellcaRangeData}") String[] clusteredNames) {
         logger.info("Initializing Cache Manager");
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        
-        // Configure default cache settings
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-            .expireAfterWrite(30, TimeUnit.MINUTES)
-            .maximumSize(100)
-            .recordStats());
-        
+
         // Define specific caches
-        cacheManager.setCacheNames(Arrays.asList(
-            "allUserProductivity",
-            "userProductivity",
-            "overallProductivity",
+        // (overall and per-user productivity use RefreshAheadCache instead)
+        List.of(
+            "productivityTimeseries",
+            "storeProductivity",
             "wellcaData",
             "wellcaRangeData"
-        ));
-        
+        ).forEach(name -> {
+            String spec = environment.getProperty("cache.spec." + name, SPECS.getOrDefault(name, DEFAULT_SPEC));
+            Cache<Object, Object> cache = buildCache(name, spec);
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, name, Tags.of("cache.manager", "cacheManager"));
+            cacheManager.registerCustomCache(name, cache);
+            logger.info("Cache {} configured with spec [{}]", name, spec);
+        });
+        // Only the caches above exist; an unknown name is a bug, not a new cache
+        cacheManager.setCacheNames(List.of());
+
         logger.info("Cache Manager initialized with caches: {}", cacheManager.getCacheNames());
-        return cacheManager;
+
+        PgNotificationBus notificationBus = bus.getIfAvailable();
+        JdbcCacheStore store = sharedStore.getIfAvailable();
+        if (notificationBus == null && store == null) {
+            return cacheManager;
+        }
+        Set<String> clustered = new HashSet<>(Arrays.asList(clusteredNames));
+        logger.info("Clustering caches {} (cross-node eviction: {}, shared L2: {})",
+            clustered, notificationBus != null, store != null);
+        return new ClusterCacheManager(cacheManager, notificationBus, store, clustered);
+    }
+
+    /**
+     * @param name Cache name, for error messages
+     * @param spec CaffeineSpec string
+     * @returns Stats-recording cache, weighed by weigh() if the spec sets maximumWeight
+     * @throws IllegalArgumentException On refreshAfterWrite: annotation caches have no
+     *         loader to refresh with (productivity.cache.refresh-after covers the
+     *         refresh-ahead productivity caches)
+     */
+    static Cache<Object, Object> buildCache(String name, String spec) {
+        if (spec.contains("refreshAfterWrite")) {
+            throw new IllegalArgumentException("cache.spec." + name + ": refreshAfterWrite needs a loading cache");
+        }
+        Caffeine<Object, Object> builder = Caffeine.from(spec);
+        if (spec.contains("maximumWeight")) {
+            builder.weigher(CacheConfig::weigh);
+        }
+        if (!spec.contains("recordStats")) {
+            builder.recordStats();
+        }
+        return builder.build();
     }
-    
+
+    /**
+     * @returns Approximate entry cost: one per row a cached value holds, plus one
+     */
+    static int weigh(Object key, Object value) {
+        if (value instanceof Collection<?> rows) {
+            return 1 + rows.size();
+        }
+        if (value instanceof ProductivityTimeseriesDTO series && series.getBuckets() != null) {
+            return 1 + series.getBuckets().size();
+        }
+        if (value instanceof StoreProductivityDTO store && store.getUsers() != null) {
+            return 1 + store.getUsers().size();
+        }
+        return 1;
+    }
+
     @Bean
     public Caffeine<Object, Object> caffeineConfig() {
         logger.debug("Configuring Caffeine cache specifications");
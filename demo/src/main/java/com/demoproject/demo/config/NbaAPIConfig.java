@@ -8,6 +8,8 @@
 
 package com.demoproject.demo.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpMetricsEventListener;
 import okhttp3.OkHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,8 +52,11 @@ public class NbaAPIConfig {
     /**
      * Configures shared OkHttpClient instance for API requests.
      *
+     * @param meterRegistry Records every call as nba.api.requests
      * @return Configured OkHttpClient with timeout settings
      * @note Thread-safe, can be shared across application
+     * @note Requests are tagged by URL path only; query strings (game ids) would
+     *       give every game its own time series
      * 
      * TIMEOUTS:
      * - Connect: 30s
@@ -64,13 +69,16 @@ public class NbaAPIConfig {
      * - Fails fast on network errors
      */
     @Bean
-    public OkHttpClient okHttpClient() {
+    public OkHttpClient okHttpClient(MeterRegistry meterRegistry) {
         logger.debug("Configuring OkHttpClient with timeout settings");
         
         OkHttpClient client = new OkHttpClient.Builder()
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .readTimeout(30, TimeUnit.SECONDS)
                 .writeTimeout(30, TimeUnit.SECONDS)
+                .eventListener(OkHttpMetricsEventListener.builder(meterRegistry, "nba.api.requests")
+                    .uriMapper(request -> request.url().encodedPath())
+                    .build())
                 .build();
                 
         logger.info("OkHttpClient configured successfully with 30s timeouts");
@@ -124,6 +132,5 @@ public class NbaAPIConfig {
     /* TODO: [RESILIENCE] Add retry configuration for failed requests
      * TODO: [STABILITY] Add circuit breaker for API failure scenarios
      * TODO: [SECURITY] Consider adding request rate limiting
-     * TODO: [MONITOR] Add metrics for API call monitoring
      */
 }
@@ -2,31 +2,36 @@
  * Security Configuration Module
  * 
  * PURPOSE: Centralizes Spring Security configuration and authentication logic
- * DEPENDENCIES: Spring Security, BCrypt, UserRepository, SLF4J
+ * DEPENDENCIES: Spring Security, BCrypt, UserDirectory, SLF4J
  * SCOPE: Application-wide security settings
  * ========================================================================== */
 
 package com.demoproject.demo.config;
 
-import com.demoproject.demo.repository.UserRepository;
+import com.demoproject.demo.services.UserDirectory;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -40,6 +45,7 @@ import java.io.PrintWriter;
  * - HTTPS channel security
  * - Custom login/logout handling
  * - Session management
+ * - Stateless HTTP Basic for Prometheus scrapes
  * 
  * SECURITY CONSIDERATIONS:
  * - All passwords hashed with BCrypt
@@ -53,11 +59,11 @@ import java.io.PrintWriter;
 @EnableAspectJAutoProxy
 public class SecurityConfig {
 
-    private final UserRepository userRepository;
+    private final UserDirectory userDirectory;
     private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
 
-    public SecurityConfig(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public SecurityConfig(UserDirectory userDirectory) {
+        this.userDirectory = userDirectory;
     }
 
     /* .... Core Security Beans .... */
@@ -71,10 +77,10 @@ public class SecurityConfig {
     public UserDetailsService userDetailsService() {
         return username -> {
             try {
-                return userRepository.findByUsername(username)
-                    .map(user -> User.withUsername(user.getUsername())
-                                   .password(user.getPassword())
-                                   .roles(user.getRole().name())
+                return userDirectory.find(username)
+                    .map(user -> User.withUsername(user.username())
+                                   .password(user.passwordHash())
+                                   .roles(user.role().name())
                                    .build())
                     .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
             } catch (Exception e) {
@@ -84,9 +90,48 @@ public class SecurityConfig {
         };
     }
 
+    /* .... Metrics Scrape Configuration .... */
+
+    /**
+     * Lets Prometheus scrape /actuator/prometheus with HTTP Basic, no session
+     * and no login page.
+     *
+     * @param username Scrape user (metrics.scrape.username)
+     * @param password Scrape password (metrics.scrape.password); blank refuses every scrape
+     * @note Matched before the form-login chain; the scrape user exists only in
+     *       memory and holds just the METRICS role, so it can read nothing else
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain metricsFilterChain(HttpSecurity http,
+                                                  @Value("${metrics.scrape.username:prometheus}") String username,
+                                                  @Value("${metrics.scrape.password:}") String password) throws Exception {
+        InMemoryUserDetailsManager scrapeUsers = new InMemoryUserDetailsManager();
+        if (password.isBlank()) {
+            logger.warn("metrics.scrape.password is not set, /actuator/prometheus refuses every scrape");
+        } else {
+            scrapeUsers.createUser(User.withUsername(username)
+                .password(passwordEncoder().encode(password))
+                .roles("METRICS")
+                .build());
+        }
+
+        http
+            .securityMatcher("/actuator/prometheus")
+            .requiresChannel(channel -> channel.anyRequest().requiresSecure())
+            .authorizeHttpRequests(authz -> authz.anyRequest().hasRole("METRICS"))
+            .userDetailsService(scrapeUsers)
+            .httpBasic(Customizer.withDefaults())
+            .csrf(csrf -> csrf.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+
+        return http.build();
+    }
+
     /* .... HTTP Security Configuration .... */
     
     @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
             .requiresChannel(channel -> channel.anyRequest().requiresSecure())
@@ -95,19 +140,22 @@ public class SecurityConfig {
                 // Static resources and public pages
                 .requestMatchers("/css/**", "/js/**", "/images/**", "/*.png", "/*.ico", "/h2-console/**").permitAll()
                 .requestMatchers("/", "/login").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
                 
                 // Admin and moderator access
-                .requestMatchers("/api/overall-productivity", "/view-responses", "/user-productivity", "/api/user-productivity/**").hasAnyRole("ADMIN", "MODERATOR")
+                .requestMatchers("/api/overall-productivity", "/view-responses", "/view-responses/export", "/user-productivity", "/api/user-productivity/**", "/api/productivity/**").hasAnyRole("ADMIN", "MODERATOR")
                 .requestMatchers("/api/checker/**").hasRole("CHECKER")
                 .requestMatchers("/api/shipping/**").hasRole("SHIPPING")
                 .requestMatchers("/api/inventory/**").hasRole("INVENTORY")
                 .requestMatchers("/packmed", "/api/packmed/**").hasAnyRole("CHECKER", "MODERATOR", "ADMIN")
-                .requestMatchers("/api/user-productivity-stream").hasAnyRole("ADMIN", "MODERATOR")
+                .requestMatchers("/api/user-productivity-stream", "/api/user-productivity-snapshot").hasAnyRole("ADMIN", "MODERATOR")
                 
                 // Audit log access - Admin only
                 .requestMatchers("/audit/**", "/api/audit/**").hasRole("ADMIN")
                 .requestMatchers("/api/audit/logs", "/api/audit/download").hasRole("ADMIN")
                 .requestMatchers("/api/audit/search/**").hasRole("ADMIN")
+                .requestMatchers("/api/pac/import/**").hasRole("ADMIN")
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 
                 .requestMatchers(HttpMethod.POST, "/submit-questions").authenticated()
                 .anyRequest().authenticated()
@@ -164,7 +212,6 @@ public class SecurityConfig {
 
     /* @todo [SECURITY] Add rate limiting for login attempts
      * @todo [AUDIT] Implement security event logging
-     * @todo [PERF] Consider caching authenticated user details
      * @todo [RESILIENCE] Add circuit breaker for auth failures
      */
 }
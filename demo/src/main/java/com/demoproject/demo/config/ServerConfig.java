@@ -20,6 +20,8 @@ import org.apache.catalina.LifecycleListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.catalina.LifecycleException;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
 
 /* --------------------------------------------------------------------------
  * Core Server Configuration
@@ -50,6 +52,10 @@ public class ServerConfig {
     @Value("${server.tomcat.connection-timeout:20000}")
     private int connectionTimeout;
 
+    /* Boot moves the main connector onto virtual threads; the redirect connector is ours to switch */
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     /* .... Server Factory Configuration .... */
     /**
      * Creates and configures the main servlet container factory.
@@ -102,7 +108,8 @@ public class ServerConfig {
      * - Port: 8080 (HTTP)
      * - Redirect Port: 8443 (HTTPS)
      * - Connection Timeout: 20s
-     * - Max Threads: 150
+     * - Max Threads: 150 (platform threads), or one virtual thread per request
+     *   when spring.threads.virtual.enabled=true
      * - Accept Queue: 100
      */
     private Connector createRedirectConnector() {
@@ -114,6 +121,10 @@ public class ServerConfig {
         connector.setProperty("connectionTimeout", String.valueOf(connectionTimeout));
         connector.setProperty("maxThreads", "150");
         connector.setProperty("acceptCount", String.valueOf(acceptCount));
+        if (virtualThreads && connector.getProtocolHandler() instanceof AbstractProtocol<?> protocol) {
+            protocol.setExecutor(new VirtualThreadExecutor("tomcat-redirect-"));
+            logger.info("Redirect connector running on virtual threads");
+        }
         return connector;
     }
 
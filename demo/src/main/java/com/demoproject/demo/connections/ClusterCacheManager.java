@@ -0,0 +1,293 @@
+/* ==========================================================================
+ * Cluster Cache Manager
+ *
+ * PURPOSE: Cache manager decorator that keeps local Caffeine caches
+ *          consistent across app instances
+ * DEPENDENCIES: PgNotificationBus (optional), JdbcCacheStore (optional)
+ * SCOPE: Caches listed in cache.cluster.names; other caches pass through
+ *
+ * DESIGN:
+ * - L1: the node's own Caffeine cache, always consulted first
+ * - L2: optional shared JdbcCacheStore, read on an L1 miss and written on
+ *   every load or put
+ * - An evict or clear is applied locally and to L2 at once, then broadcast
+ *   on the "cache_invalidations" channel once the writing transaction has
+ *   completed, so other nodes cannot reload the row before it commits
+ * - Remote evictions match keys by toString, the same form L2 stores
+ * - Each time the bus (re)connects or another node reports lost messages,
+ *   the clustered L1 caches are cleared, since those evictions never arrive
+ *
+ * @note Productivity caches stay out of cache.cluster.names: they are kept
+ *       consistent by ProductivityClusterRelay, which replays PAC changes
+ * ========================================================================== */
+
+package com.demoproject.demo.connections;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class ClusterCacheManager implements CacheManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCacheManager.class);
+    public static final String CHANNEL = "cache_invalidations";
+
+    /**
+     * Eviction broadcast to other nodes.
+     *
+     * @param cache Cache name
+     * @param key Evicted key's toString, null for a clear
+     */
+    public record Invalidation(String cache, String key) {
+    }
+
+    private final CacheManager delegate;
+    private final PgNotificationBus bus;
+    private final JdbcCacheStore sharedStore;
+    private final Set<String> clusteredNames;
+    private final ConcurrentMap<String, ClusterCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate Local (L1) cache manager
+     * @param bus Cross-node bus, or null to keep evictions local
+     * @param sharedStore Shared L2 tier, or null for L1 only
+     * @param clusteredNames Caches to decorate
+     */
+    public ClusterCacheManager(CacheManager delegate, PgNotificationBus bus,
+                               JdbcCacheStore sharedStore, Set<String> clusteredNames) {
+        this.delegate = delegate;
+        this.bus = bus;
+        this.sharedStore = sharedStore;
+        this.clusteredNames = Set.copyOf(clusteredNames);
+        if (bus != null) {
+            bus.subscribe(CHANNEL, this::onRemoteInvalidation);
+            bus.onResync(this::clearLocal);
+        }
+    }
+
+    /* --------------------------------------------------------------------------
+     * CacheManager
+     * -------------------------------------------------------------------------- */
+
+    @Override
+    public Cache getCache(String name) {
+        Cache local = delegate.getCache(name);
+        if (local == null || !clusteredNames.contains(name)) {
+            return local;
+        }
+        return caches.computeIfAbsent(name, key -> new ClusterCache(local));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    /* --------------------------------------------------------------------------
+     * Remote Invalidation
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Applies an eviction made on another node to the local L1
+     * @param message Serialized Invalidation
+     * @note L2 was already updated by the node that made the change
+     */
+    private void onRemoteInvalidation(JsonNode message) {
+        Cache local = delegate.getCache(message.path("cache").asText());
+        if (local == null) {
+            return;
+        }
+        JsonNode key = message.path("key");
+        if (!key.isTextual()) {
+            local.clear();
+        } else if (local instanceof CaffeineCache caffeineCache) {
+            String keyText = key.asText();
+            caffeineCache.getNativeCache().asMap().keySet().removeIf(cached -> keyText.equals(cached.toString()));
+        } else {
+            local.clear();
+        }
+        logger.debug("Applied remote invalidation of {}:{}", local.getName(), key.isTextual() ? key.asText() : "*");
+    }
+
+    /**
+     * Clears the L1 of every clustered cache after the bus resynchronizes
+     * @note L2 is shared and already current, so it is left alone
+     */
+    private void clearLocal() {
+        for (String name : clusteredNames) {
+            Cache local = delegate.getCache(name);
+            if (local != null) {
+                local.clear();
+            }
+        }
+        logger.info("Cleared local clustered caches {} after the notification bus connected", clusteredNames);
+    }
+
+    /* --------------------------------------------------------------------------
+     * Two-Level Cache
+     * -------------------------------------------------------------------------- */
+
+    private final class ClusterCache implements Cache {
+        private final Cache local;
+
+        private ClusterCache(Cache local) {
+            this.local = local;
+        }
+
+        @Override
+        public String getName() {
+            return local.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return local.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            ValueWrapper hit = local.get(key);
+            if (hit != null || sharedStore == null) {
+                return hit;
+            }
+            Optional<Object> shared = sharedStore.get(getName(), key);
+            if (shared.isEmpty()) {
+                return null;
+            }
+            Object value = fromStore(shared.get());
+            local.put(key, value);
+            return new SimpleValueWrapper(value);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Class<T> type) {
+            ValueWrapper wrapper = get(key);
+            Object value = wrapper != null ? wrapper.get() : null;
+            if (value != null && type != null && !type.isInstance(value)) {
+                throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+            }
+            return (T) value;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return local.get(key, () -> {
+                if (sharedStore != null) {
+                    Optional<Object> shared = sharedStore.get(getName(), key);
+                    if (shared.isPresent()) {
+                        return (T) fromStore(shared.get());
+                    }
+                }
+                T value = valueLoader.call();
+                if (sharedStore != null) {
+                    sharedStore.put(getName(), key, toStore(value));
+                }
+                return value;
+            });
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            local.put(key, value);
+            if (sharedStore != null) {
+                sharedStore.put(getName(), key, toStore(value));
+            }
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            ValueWrapper existing = local.putIfAbsent(key, value);
+            if (existing == null && sharedStore != null) {
+                sharedStore.put(getName(), key, toStore(value));
+            }
+            return existing;
+        }
+
+        @Override
+        public void evict(Object key) {
+            local.evict(key);
+            propagate(key);
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            boolean present = local.evictIfPresent(key);
+            propagate(key);
+            return present;
+        }
+
+        @Override
+        public void clear() {
+            local.clear();
+            propagate(null);
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean present = local.invalidate();
+            propagate(null);
+            return present;
+        }
+
+        /**
+         * Removes a key (null for all) from L2 and tells the other nodes
+         * @note Inside a transaction, L1 and L2 are cleared again and the
+         *       broadcast sent once it completes, so a load racing the write
+         *       cannot leave the old value behind anywhere
+         */
+        private void propagate(Object key) {
+            if (sharedStore != null) {
+                sharedStore.evict(getName(), key);
+            }
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                publish(key);
+                return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (key == null) {
+                        local.clear();
+                    } else {
+                        local.evict(key);
+                    }
+                    if (sharedStore != null) {
+                        sharedStore.evict(getName(), key);
+                    }
+                    publish(key);
+                }
+            });
+        }
+
+        private void publish(Object key) {
+            if (bus != null) {
+                bus.publish(CHANNEL, new Invalidation(getName(), key != null ? key.toString() : null));
+            }
+        }
+    }
+
+    private static Object toStore(Object value) {
+        return value != null ? value : NullValue.INSTANCE;
+    }
+
+    private static Object fromStore(Object stored) {
+        return stored instanceof NullValue ? null : stored;
+    }
+}
@@ -0,0 +1,96 @@
+/* ==========================================================================
+ * Connection Pool Health Indicator
+ *
+ * PURPOSE: Reports the main Hikari pool as SATURATED when it is nearly
+ *          exhausted and callers are queueing for connections
+ * DEPENDENCIES: HikariCP (pool MXBean), Spring Boot Actuator
+ * SCOPE: "connectionPool" component of /actuator/health
+ *
+ * DESIGN:
+ * - Saturated: active / maximumPoolSize >= db.pool.saturation-threshold
+ *   and at least one thread is waiting; waiters alone are normal while the
+ *   pool grows from minimumIdle
+ * - SATURATED ranks between OUT_OF_SERVICE and UP and maps to HTTP 200
+ *   (see management.endpoint.health.status.*), so the node stays in
+ *   rotation: saturation is an alert, not an outage
+ * - Entering and leaving saturation is logged once each
+ *
+ * @note For alert rules use the hikaricp.connections.* meters, e.g.
+ *       hikaricp_connections_pending > 0 together with
+ *       hikaricp_connections_active / hikaricp_connections_max
+ * ========================================================================== */
+
+package com.demoproject.demo.connections;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Component
+public class ConnectionPoolHealthIndicator implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPoolHealthIndicator.class);
+    public static final Status SATURATED = new Status("SATURATED", "Connection pool is saturated");
+
+    private final HikariDataSource pool;
+    private final double threshold;
+    private volatile boolean saturated = false;
+
+    /**
+     * @param dataSource Primary data source, unwrapped to its Hikari pool
+     * @param threshold Share of maximumPoolSize in use that counts as saturated
+     * @throws SQLException If the data source is not backed by Hikari
+     */
+    public ConnectionPoolHealthIndicator(DataSource dataSource,
+                                         @Value("${db.pool.saturation-threshold:0.9}") double threshold) throws SQLException {
+        this.pool = dataSource.unwrap(HikariDataSource.class);
+        this.threshold = threshold;
+    }
+
+    /**
+     * @returns SATURATED or UP with the pool's counts, UNKNOWN before the
+     *          pool has started
+     */
+    @Override
+    public Health health() {
+        HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+        if (mxBean == null) {
+            return Health.unknown().withDetail("pool", pool.getPoolName()).build();
+        }
+        int active = mxBean.getActiveConnections();
+        int waiting = mxBean.getThreadsAwaitingConnection();
+        int max = pool.getMaximumPoolSize();
+        double utilization = max > 0 ? (double) active / max : 0.0;
+        boolean nowSaturated = waiting > 0 && utilization >= threshold;
+
+        if (nowSaturated != saturated) {
+            saturated = nowSaturated;
+            if (nowSaturated) {
+                logger.warn("Connection pool {} saturated: {}/{} active, {} threads waiting",
+                    pool.getPoolName(), active, max, waiting);
+            } else {
+                logger.info("Connection pool {} recovered: {}/{} active", pool.getPoolName(), active, max);
+            }
+        }
+
+        return Health.status(nowSaturated ? SATURATED : Status.UP)
+            .withDetail("pool", pool.getPoolName())
+            .withDetail("active", active)
+            .withDetail("idle", mxBean.getIdleConnections())
+            .withDetail("total", mxBean.getTotalConnections())
+            .withDetail("max", max)
+            .withDetail("threadsAwaiting", waiting)
+            .withDetail("utilization", Math.round(utilization * 100) / 100.0)
+            .build();
+    }
+}
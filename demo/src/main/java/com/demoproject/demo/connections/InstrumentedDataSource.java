@@ -0,0 +1,152 @@
+/* ==========================================================================
+ * Instrumented DataSource
+ *
+ * PURPOSE: Times how long each call site waits for a pooled connection
+ * DEPENDENCIES: Spring JDBC (DelegatingDataSource), Micrometer
+ * SCOPE: Wraps the primary HikariDataSource
+ *
+ * DESIGN:
+ * - db.connection.acquire{site,outcome} is one histogram per call site, read
+ *   next to hikaricp.connections.usage: a slow endpoint whose acquire time
+ *   grows is waiting on the pool, one whose usage grows is waiting on its
+ *   queries
+ * - The site is the first application frame below the acquisition, e.g.
+ *   PacService.submitPac (a @Transactional proxy) or UserDirectory.find
+ *   (a TransactionTemplate); proxies, nested classes and lambdas fold into
+ *   the declaring class and method, so the tag set is bounded by the code
+ *
+ * @note The stack walk stops at the first application frame and costs a few
+ *       microseconds per acquisition; db.connection.acquire.by-site=false
+ *       records every wait as site=all
+ * ========================================================================== */
+
+package com.demoproject.demo.connections;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+public class InstrumentedDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    static final String UNKNOWN_SITE = "other";
+    private static final String ALL_SITES = "all";
+    private static final String APP_PACKAGE = "com.demoproject.demo.";
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private final MeterRegistry meterRegistry;
+    private final boolean bySite;
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * @param target Pool to take connections from
+     * @param meterRegistry Metrics registry
+     * @param bySite Tag waits with their call site, or record them all as site=all
+     */
+    public InstrumentedDataSource(DataSource target, MeterRegistry meterRegistry, boolean bySite) {
+        super(target);
+        this.meterRegistry = meterRegistry;
+        this.bySite = bySite;
+    }
+
+    /* --------------------------------------------------------------------------
+     * Connection Acquisition
+     * -------------------------------------------------------------------------- */
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection connection = super.getConnection();
+            record("success", System.nanoTime() - start);
+            return connection;
+        } catch (SQLException e) {
+            // Hikari times out with SQLTransientConnectionException once connectionTimeout passes
+            record("error", System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection connection = super.getConnection(username, password);
+            record("success", System.nanoTime() - start);
+            return connection;
+        } catch (SQLException e) {
+            record("error", System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the wrapped pool on shutdown
+     * @note Spring infers this as the bean's destroy method
+     */
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable pool) {
+            pool.close();
+        }
+    }
+
+    private void record(String outcome, long elapsedNanos) {
+        String site = bySite ? callSite() : ALL_SITES;
+        timers.computeIfAbsent(site + '|' + outcome, key -> Timer.builder("db.connection.acquire")
+                .description("Time spent waiting for a pooled connection")
+                .tag("site", site)
+                .tag("outcome", outcome)
+                .register(meterRegistry))
+            .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /* --------------------------------------------------------------------------
+     * Call Site
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * @returns "Class.method" of the application code that asked for the
+     *          connection, "other" if there is none (e.g. Hibernate startup)
+     */
+    static String callSite() {
+        return WALKER.walk(frames -> frames
+            .filter(InstrumentedDataSource::isApplicationFrame)
+            .findFirst()
+            .map(InstrumentedDataSource::siteName)
+            .orElse(UNKNOWN_SITE));
+    }
+
+    private static boolean isApplicationFrame(StackWalker.StackFrame frame) {
+        Class<?> type = frame.getDeclaringClass();
+        // Aspects run between a proxy and its target, so the proxy frame below names the method
+        return type.getName().startsWith(APP_PACKAGE)
+            && type != InstrumentedDataSource.class
+            && !type.isAnnotationPresent(Aspect.class);
+    }
+
+    private static String siteName(StackWalker.StackFrame frame) {
+        String type = frame.getDeclaringClass().getName();
+        type = type.substring(type.lastIndexOf('.') + 1);
+        int nested = type.indexOf('$');
+        if (nested > 0) {
+            type = type.substring(0, nested);
+        }
+        String method = frame.getMethodName();
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', "lambda$".length());
+            if (end > 0) {
+                method = method.substring("lambda$".length(), end);
+            }
+        }
+        return type + "." + method;
+    }
+}
@@ -0,0 +1,249 @@
+/* ==========================================================================
+ * JDBC Cache Store
+ *
+ * PURPOSE: Optional shared second-level tier behind the local Caffeine
+ *          caches, so a value loaded by one node is reused by the others
+ * DEPENDENCIES: JdbcTemplate, Spring transactions, Micrometer
+ * SCOPE: Enabled with cache.l2.enabled=true; used by ClusterCacheManager
+ *
+ * DESIGN:
+ * - One UNLOGGED table (cache_l2), created on startup: no WAL cost, and a
+ *   crash simply empties it
+ * - Values are Java-serialized; values that are not Serializable stay L1-only,
+ *   and reads only accept application, JDK and Spring NullValue classes
+ * - Entries carry an expiry and expired rows are purged periodically
+ *
+ * @note Every operation runs in its own short transaction on a pooled
+ *       connection; any failure is logged and treated as a miss, so the
+ *       L2 tier can never fail a request
+ * ========================================================================== */
+
+package com.demoproject.demo.connections;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "cache.l2.enabled", havingValue = "true")
+public class JdbcCacheStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcCacheStore.class);
+
+    private static final String CREATE_TABLE = """
+        CREATE UNLOGGED TABLE IF NOT EXISTS cache_l2 (
+            cache_name VARCHAR(64) NOT NULL,
+            cache_key VARCHAR(512) NOT NULL,
+            cache_value BYTEA NOT NULL,
+            expires_at TIMESTAMP NOT NULL,
+            PRIMARY KEY (cache_name, cache_key)
+        )
+        """;
+    private static final String UPSERT = """
+        INSERT INTO cache_l2 (cache_name, cache_key, cache_value, expires_at) VALUES (?, ?, ?, ?)
+        ON CONFLICT (cache_name, cache_key)
+        DO UPDATE SET cache_value = EXCLUDED.cache_value, expires_at = EXCLUDED.expires_at
+        """;
+    private static final int MAX_KEY_LENGTH = 512;
+    private static final ObjectInputFilter VALUE_FILTER = ObjectInputFilter.Config.createFilter(
+        "com.demoproject.demo.**;java.**;org.springframework.cache.support.NullValue;!*");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private volatile boolean available = false;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter skippedCounter;
+    private final Counter errorCounter;
+
+    /**
+     * @param jdbcTemplate Pooled JDBC access
+     * @param transactionManager Runs each operation in its own transaction
+     * @param meterRegistry Metrics registry for L2 stats
+     * @param ttl How long an L2 entry stays valid
+     */
+    public JdbcCacheStore(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${cache.l2.ttl:30m}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Never join the caller's transaction: a failed L2 statement would abort it
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = ttl;
+        this.hitCounter = meterRegistry.counter("cache.l2.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("cache.l2.requests", "result", "miss");
+        this.skippedCounter = meterRegistry.counter("cache.l2.skipped");
+        this.errorCounter = meterRegistry.counter("cache.l2.errors");
+    }
+
+    /* --------------------------------------------------------------------------
+     * Lifecycle
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Creates the L2 table; until it exists every lookup is a miss
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createTable() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute(CREATE_TABLE));
+            available = true;
+            logger.info("L2 cache table ready, entries live for {}", ttl);
+        } catch (DataAccessException e) {
+            logger.error("Could not create L2 cache table, running L1-only", e);
+        }
+    }
+
+    /**
+     * Deletes expired entries every cache.l2.purge-ms
+     * @note Runs on Boot's task scheduler (@EnableScheduling on DemoApplication);
+     *       reads already skip expired rows, so this only bounds the table's size
+     */
+    @Scheduled(fixedDelayString = "${cache.l2.purge-ms:300000}")
+    public void purgeExpired() {
+        if (!available) {
+            return;
+        }
+        run(() -> {
+            int purged = jdbcTemplate.update("DELETE FROM cache_l2 WHERE expires_at < ?", Timestamp.from(Instant.now()));
+            logger.debug("Purged {} expired L2 cache entries", purged);
+        });
+    }
+
+    /* --------------------------------------------------------------------------
+     * Entries
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * @param cacheName Cache name
+     * @param key Cache key (stored as its toString)
+     * @returns Stored value, empty on a miss, an expired entry or any error
+     */
+    public Optional<Object> get(String cacheName, Object key) {
+        if (!available || !isStorableKey(key)) {
+            return Optional.empty();
+        }
+        try {
+            List<byte[]> rows = transactionTemplate.execute(status -> jdbcTemplate.query(
+                "SELECT cache_value FROM cache_l2 WHERE cache_name = ? AND cache_key = ? AND expires_at > ?",
+                (rs, rowNum) -> rs.getBytes(1),
+                cacheName, key.toString(), Timestamp.from(Instant.now())));
+            if (rows == null || rows.isEmpty()) {
+                missCounter.increment();
+                return Optional.empty();
+            }
+            hitCounter.increment();
+            return Optional.of(deserialize(rows.get(0)));
+        } catch (DataAccessException | IOException | ClassNotFoundException e) {
+            errorCounter.increment();
+            logger.warn("L2 cache read failed for {}:{}", cacheName, key, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param cacheName Cache name
+     * @param key Cache key (stored as its toString)
+     * @param value Value to share; skipped unless Serializable
+     */
+    public void put(String cacheName, Object key, Object value) {
+        if (!available || !isStorableKey(key)) {
+            return;
+        }
+        byte[] bytes;
+        try {
+            bytes = serialize(value);
+        } catch (NotSerializableException e) {
+            skippedCounter.increment();
+            logger.debug("Not sharing {}:{}, value is not serializable", cacheName, key);
+            return;
+        } catch (IOException e) {
+            errorCounter.increment();
+            logger.warn("L2 cache serialization failed for {}:{}", cacheName, key, e);
+            return;
+        }
+        Timestamp expiresAt = Timestamp.from(Instant.now().plus(ttl));
+        run(() -> jdbcTemplate.update(UPSERT, cacheName, key.toString(), bytes, expiresAt));
+    }
+
+    /**
+     * @param cacheName Cache name
+     * @param key Cache key, or null to delete every entry of the cache
+     */
+    public void evict(String cacheName, Object key) {
+        if (!available) {
+            return;
+        }
+        if (key == null) {
+            run(() -> jdbcTemplate.update("DELETE FROM cache_l2 WHERE cache_name = ?", cacheName));
+        } else if (isStorableKey(key)) {
+            run(() -> jdbcTemplate.update("DELETE FROM cache_l2 WHERE cache_name = ? AND cache_key = ?",
+                cacheName, key.toString()));
+        }
+    }
+
+    private void run(Runnable statement) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> statement.run());
+        } catch (DataAccessException e) {
+            errorCounter.increment();
+            logger.warn("L2 cache write failed", e);
+        }
+    }
+
+    private static boolean isStorableKey(Object key) {
+        return key != null && key.toString().length() <= MAX_KEY_LENGTH;
+    }
+
+    /* --------------------------------------------------------------------------
+     * Serialization
+     * -------------------------------------------------------------------------- */
+
+    private static byte[] serialize(Object value) throws IOException {
+        if (!(value instanceof Serializable)) {
+            throw new NotSerializableException(value == null ? "null" : value.getClass().getName());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            in.setObjectInputFilter(VALUE_FILTER);
+            return in.readObject();
+        }
+    }
+}
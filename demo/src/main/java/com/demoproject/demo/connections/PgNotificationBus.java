@@ -0,0 +1,447 @@
+/* ==========================================================================
+ * PostgreSQL Notification Bus
+ *
+ * PURPOSE: Cross-node message bus on PostgreSQL LISTEN/NOTIFY, so app
+ *          instances can share events without a broker or sticky sessions
+ * DEPENDENCIES: PostgreSQL JDBC driver (PGConnection), Jackson, Micrometer
+ * SCOPE: Enabled with cluster.bus.enabled=true
+ *
+ * DESIGN:
+ * - One dedicated connection built from the HikariConfig in DatabaseConfig;
+ *   it is held for the life of the app, so it is kept out of the pool where
+ *   it would trip leak detection and permanently use up a pooled slot
+ * - A single bus thread both sends and receives; messages published within
+ *   one poll interval are batched into as few NOTIFY payloads as fit under
+ *   PostgreSQL's 8000 byte limit
+ * - Every payload carries this node's id, so a node ignores its own messages
+ * - Payloads a failed send did not get out are kept and sent first on the
+ *   next connection
+ * - Whenever this node loses outgoing messages (queue full, oversized
+ *   message, a send whose outcome is unknown) it tells the other nodes on
+ *   the "bus_resync" channel, after everything it still had to send
+ *
+ * @note NOTIFY is delivered at most once and only to connected listeners;
+ *       consumers register onResync to reload from the database when this
+ *       node (re)connects or another node reports lost messages
+ * ========================================================================== */
+
+package com.demoproject.demo.connections;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+@Component
+@ConditionalOnProperty(name = "cluster.bus.enabled", havingValue = "true")
+public class PgNotificationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(PgNotificationBus.class);
+
+    /* PostgreSQL rejects NOTIFY payloads of 8000 bytes or more */
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    private static final long RECONNECT_BACKOFF_MS = 5000L;
+    public static final String RESYNC_CHANNEL = "bus_resync";
+
+    private final HikariConfig hikariConfig;
+    private final ObjectMapper objectMapper;
+    private final int pollMillis;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final BlockingQueue<OutgoingMessage> outgoing;
+    private final ConcurrentMap<String, List<Consumer<JsonNode>>> handlers = new ConcurrentHashMap<>();
+    private final List<Runnable> resyncHandlers = new CopyOnWriteArrayList<>();
+    private final Thread busThread;
+    private volatile boolean running = true;
+    // Set when an outgoing message is lost; cleared when the resync notice is sent
+    private volatile boolean resyncOwed = false;
+
+    /* Owned by the bus thread only */
+    private Connection connection;
+    private final Set<String> listening = new HashSet<>();
+    private final Deque<Payload> unsent = new ArrayDeque<>();
+
+    private final Counter publishedCounter;
+    private final Counter notifyCounter;
+    private final Counter receivedCounter;
+    private final Counter selfSkippedCounter;
+    private final Counter droppedCounter;
+    private final Counter reconnectCounter;
+    private final Counter resyncSentCounter;
+    private final Counter resyncReceivedCounter;
+
+    /**
+     * @param hikariConfig Source of the JDBC URL and credentials
+     * @param objectMapper Payload serialization
+     * @param meterRegistry Metrics registry for bus stats
+     * @param pollMillis Batching window and receive poll interval
+     * @param queueCapacity Messages buffered while the bus is busy or reconnecting
+     */
+    public PgNotificationBus(HikariConfig hikariConfig,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${cluster.bus.poll-ms:50}") int pollMillis,
+                             @Value("${cluster.bus.queue-capacity:10000}") int queueCapacity) {
+        this.hikariConfig = hikariConfig;
+        this.objectMapper = objectMapper;
+        this.pollMillis = pollMillis;
+        this.outgoing = new ArrayBlockingQueue<>(queueCapacity);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("pg-notify-bus-");
+        threadFactory.setDaemon(true);
+        this.busThread = threadFactory.newThread(this::run);
+
+        this.publishedCounter = meterRegistry.counter("cluster.bus.published");
+        this.notifyCounter = meterRegistry.counter("cluster.bus.notifications");
+        this.receivedCounter = meterRegistry.counter("cluster.bus.received");
+        this.selfSkippedCounter = meterRegistry.counter("cluster.bus.self.skipped");
+        this.droppedCounter = meterRegistry.counter("cluster.bus.dropped");
+        this.reconnectCounter = meterRegistry.counter("cluster.bus.connects");
+        this.resyncSentCounter = meterRegistry.counter("cluster.bus.resyncs", "direction", "sent");
+        this.resyncReceivedCounter = meterRegistry.counter("cluster.bus.resyncs", "direction", "received");
+        subscribe(RESYNC_CHANNEL, message -> {
+            resyncReceivedCounter.increment();
+            logger.info("Node {} lost outgoing bus messages, resynchronizing", message.asText());
+            runResyncHandlers();
+        });
+    }
+
+    /* --------------------------------------------------------------------------
+     * Public API
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Registers a handler for messages other nodes publish on a channel
+     * @param channel Lower-case channel name
+     * @param handler Receives each remote message on the bus thread
+     * @throws IllegalArgumentException if the channel name is not a plain identifier
+     */
+    public void subscribe(String channel, Consumer<JsonNode> handler) {
+        validateChannel(channel);
+        handlers.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * Registers a callback for whenever messages may have been missed
+     * @param handler Runs on the bus thread each time the bus (re)connects, once
+     *                every channel is LISTENed again, and each time another node
+     *                reports that it lost outgoing messages
+     * @note Messages sent while this node was disconnected are lost; the first
+     *       connect covers the gap between startup seeding and the first LISTEN
+     */
+    public void onResync(Runnable handler) {
+        resyncHandlers.add(handler);
+    }
+
+    /**
+     * Queues a message for every other node
+     * @param channel Lower-case channel name
+     * @param message Any Jackson-serializable value
+     * @note Never blocks; when the queue is full the message is dropped and
+     *       counted, and the other nodes are told to resynchronize
+     */
+    public void publish(String channel, Object message) {
+        validateChannel(channel);
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize bus message for channel {}", channel, e);
+            return;
+        }
+        if (!outgoing.offer(new OutgoingMessage(channel, json))) {
+            droppedCounter.increment();
+            resyncOwed = true;
+            logger.warn("Notification bus queue full, dropping message for channel {}", channel);
+            return;
+        }
+        publishedCounter.increment();
+    }
+
+    /**
+     * @returns Identifier stamped on every payload from this node
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private static void validateChannel(String channel) {
+        if (channel == null || !CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid notification channel: " + channel);
+        }
+    }
+
+    /* --------------------------------------------------------------------------
+     * Lifecycle
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Starts the bus thread once every subscriber has registered
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        logger.info("Starting PostgreSQL notification bus as node {}", nodeId);
+        busThread.start();
+    }
+
+    /**
+     * Stops the bus thread and closes the dedicated connection
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        busThread.interrupt();
+    }
+
+    /* --------------------------------------------------------------------------
+     * Bus Thread
+     * -------------------------------------------------------------------------- */
+
+    private void run() {
+        while (running) {
+            try {
+                ensureConnected();
+                sendOutgoing();
+                PGNotification[] notifications = connection.unwrap(PGConnection.class).getNotifications(pollMillis);
+                if (notifications != null) {
+                    for (PGNotification notification : notifications) {
+                        dispatch(notification);
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                logger.warn("Notification bus connection failed, reconnecting in {}ms", RECONNECT_BACKOFF_MS, e);
+                closeConnection();
+                try {
+                    Thread.sleep(RECONNECT_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        closeConnection();
+        logger.info("PostgreSQL notification bus stopped");
+    }
+
+    /**
+     * Opens the dedicated connection and LISTENs on every registered channel
+     * @note Connect handlers run after the LISTENs, so whatever they reload
+     *       from the database cannot miss a change committed meanwhile
+     */
+    private void ensureConnected() throws SQLException {
+        boolean connected = false;
+        if (connection == null || connection.isClosed()) {
+            connection = DriverManager.getConnection(
+                hikariConfig.getJdbcUrl(), hikariConfig.getUsername(), hikariConfig.getPassword());
+            connection.setAutoCommit(true);
+            listening.clear();
+            connected = true;
+            logger.info("Notification bus connected");
+        }
+        for (String channel : handlers.keySet()) {
+            if (listening.add(channel)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+            }
+        }
+        if (connected) {
+            reconnectCounter.increment();
+            runResyncHandlers();
+        }
+    }
+
+    private void runResyncHandlers() {
+        for (Runnable handler : resyncHandlers) {
+            try {
+                handler.run();
+            } catch (Exception e) {
+                logger.error("Bus resync handler failed", e);
+            }
+        }
+    }
+
+    /**
+     * Drains the outgoing queue into batched NOTIFY payloads and sends them,
+     * followed by a resync notice if any message was lost
+     * @note A payload stays queued until its NOTIFY succeeds; a failed send is
+     *       ambiguous (it may have reached the server), so it also owes a resync,
+     *       sent after the retried payloads so peers reload last
+     */
+    private void sendOutgoing() throws SQLException {
+        if (!outgoing.isEmpty()) {
+            List<OutgoingMessage> drained = new ArrayList<>();
+            outgoing.drainTo(drained);
+
+            Map<String, List<String>> byChannel = new LinkedHashMap<>();
+            drained.forEach(message -> byChannel.computeIfAbsent(message.channel, key -> new ArrayList<>()).add(message.json));
+            byChannel.forEach((channel, messages) ->
+                toPayloads(messages).forEach(payload -> unsent.addLast(new Payload(channel, payload))));
+        }
+        if (unsent.isEmpty() && !resyncOwed) {
+            return;
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            while (!unsent.isEmpty()) {
+                Payload payload = unsent.peekFirst();
+                send(statement, payload.channel(), payload.text());
+                unsent.pollFirst();
+            }
+            if (resyncOwed) {
+                // Cleared first: a message dropped while the notice is sent owes another
+                resyncOwed = false;
+                send(statement, RESYNC_CHANNEL, toPayloads(List.of('"' + nodeId + '"')).get(0));
+                resyncSentCounter.increment();
+                logger.warn("Asked other nodes to resynchronize after lost bus messages");
+            }
+        } catch (SQLException e) {
+            resyncOwed = true;
+            throw e;
+        }
+    }
+
+    private void send(PreparedStatement statement, String channel, String payload) throws SQLException {
+        statement.setString(1, channel);
+        statement.setString(2, payload);
+        statement.execute();
+        notifyCounter.increment();
+    }
+
+    /**
+     * Packs messages into {"node":..,"messages":[..]} envelopes under the payload limit
+     */
+    private List<String> toPayloads(List<String> messages) {
+        String prefix = "{\"node\":\"" + nodeId + "\",\"messages\":[";
+        String suffix = "]}";
+        int overhead = prefix.length() + suffix.length();
+
+        List<String> payloads = new ArrayList<>();
+        StringBuilder batch = new StringBuilder(prefix);
+        int batchBytes = overhead;
+        int batchCount = 0;
+        for (String message : messages) {
+            int messageBytes = message.getBytes(StandardCharsets.UTF_8).length;
+            if (overhead + messageBytes > MAX_PAYLOAD_BYTES) {
+                droppedCounter.increment();
+                resyncOwed = true;
+                logger.warn("Dropping bus message of {} bytes, over the NOTIFY payload limit", messageBytes);
+                continue;
+            }
+            if (batchCount > 0 && batchBytes + 1 + messageBytes > MAX_PAYLOAD_BYTES) {
+                payloads.add(batch.append(suffix).toString());
+                batch = new StringBuilder(prefix);
+                batchBytes = overhead;
+                batchCount = 0;
+            }
+            if (batchCount > 0) {
+                batch.append(',');
+                batchBytes++;
+            }
+            batch.append(message);
+            batchBytes += messageBytes;
+            batchCount++;
+        }
+        if (batchCount > 0) {
+            payloads.add(batch.append(suffix).toString());
+        }
+        return payloads;
+    }
+
+    /**
+     * Hands each message of a remote payload to the channel's handlers
+     */
+    private void dispatch(PGNotification notification) {
+        List<Consumer<JsonNode>> channelHandlers = handlers.get(notification.getName());
+        if (channelHandlers == null) {
+            return;
+        }
+        try {
+            JsonNode envelope = objectMapper.readTree(notification.getParameter());
+            if (nodeId.equals(envelope.path("node").asText())) {
+                selfSkippedCounter.increment();
+                return;
+            }
+            for (JsonNode message : envelope.path("messages")) {
+                receivedCounter.increment();
+                for (Consumer<JsonNode> handler : channelHandlers) {
+                    try {
+                        handler.accept(message);
+                    } catch (Exception e) {
+                        logger.error("Bus handler failed on channel {}", notification.getName(), e);
+                    }
+                }
+            }
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring malformed payload on channel {}", notification.getName(), e);
+        }
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.debug("Error closing notification bus connection", e);
+            }
+            connection = null;
+        }
+    }
+
+    /* --------------------------------------------------------------------------
+     * Outgoing Message and Payload
+     * -------------------------------------------------------------------------- */
+
+    private record Payload(String channel, String text) {
+    }
+
+    private static final class OutgoingMessage {
+        private final String channel;
+        private final String json;
+
+        private OutgoingMessage(String channel, String json) {
+            this.channel = channel;
+            this.json = json;
+        }
+    }
+}
@@ -14,24 +14,39 @@
 package com.demoproject.demo.controller;
 
 import com.demoproject.demo.entity.Pac;
+import com.demoproject.demo.services.PacExportService;
+import com.demoproject.demo.services.PacIngestionService;
 import com.demoproject.demo.services.PacService;
+import com.demoproject.demo.services.PacSubmissionDeduplicator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import com.demoproject.demo.annotation.RequiresAuthentication;
 import org.springframework.ui.Model;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPOutputStream;
 
 /* --------------------------------------------------------------------------
  * PAC Controller Implementation
@@ -50,10 +65,31 @@ import java.util.Map;
 public class PacController {
 
     private static final Logger logger = LoggerFactory.getLogger(PacController.class);
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String REPLAYED_HEADER = "Idempotent-Replayed";
     private final PacService pacService;
+    private final PacSubmissionDeduplicator deduplicator;
+    private final PacExportService exportService;
+    private final PacIngestionService ingestionService;
+    private final long ackTimeoutMillis;
 
-    public PacController(PacService pacService) {
+    /**
+     * @param pacService PAC persistence
+     * @param deduplicator Replays submissions repeated with the same Idempotency-Key
+     * @param exportService Streaming CSV/NDJSON export
+     * @param ingestionService Write-behind ingestion, present when pac.ingest.batch.enabled=true
+     * @param ackTimeoutMillis Longest wait for a batched submission to commit
+     */
+    public PacController(PacService pacService,
+                         PacSubmissionDeduplicator deduplicator,
+                         PacExportService exportService,
+                         ObjectProvider<PacIngestionService> ingestionService,
+                         @Value("${pac.ingest.ack-timeout-ms:10000}") long ackTimeoutMillis) {
         this.pacService = pacService;
+        this.deduplicator = deduplicator;
+        this.exportService = exportService;
+        this.ingestionService = ingestionService.getIfAvailable();
+        this.ackTimeoutMillis = ackTimeoutMillis;
     }
 
     /* .... Question Display Handler .... */
@@ -76,11 +112,23 @@ public class PacController {
      *
      * @param pacData Map of PAC form data (store, times, counts)
      * @param authentication Current user's authentication context
-     * @returns ResponseEntity with submission status
+     * @param requestKey Optional Idempotency-Key; resending the same key never
+     *                   inserts twice and gets the original result back
+     * @returns ResponseEntity with submission status, completed asynchronously
+     *          once a batched submission has committed
      * 
      * @secure Requires valid authentication
      * @throws Exception on parsing or validation errors
      * 
+     * BATCHED MODE (pac.ingest.batch.enabled=true):
+     * - 200 after the entry's batch commits
+     * - 503 with Retry-After when the ingestion queue is full
+     * - 202 if the commit is not confirmed within pac.ingest.ack-timeout-ms
+     * 
+     * IDEMPOTENCY:
+     * - Replays answer like the original, plus Idempotent-Replayed: true
+     * - 400 if the key is not 8-64 characters of [A-Za-z0-9_-]
+     * 
      * VALIDATION:
      * - Authentication state verification
      * - Required field presence
@@ -90,12 +138,17 @@ public class PacController {
     @PostMapping("/submit-questions")
     @RequiresAuthentication
     @ResponseBody
-    public ResponseEntity<String> submitQuestions(@RequestBody Map<String, String> pacData, 
-            Authentication authentication) {
+    public CompletableFuture<ResponseEntity<String>> submitQuestions(@RequestBody Map<String, String> pacData, 
+            Authentication authentication,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String requestKey) {
         if (authentication == null || !authentication.isAuthenticated()) {
             logger.warn("Unauthorized access attempt to submit questions");
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                               .body("User not authenticated");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                               .body("User not authenticated"));
+        }
+        if (requestKey != null && !PacSubmissionDeduplicator.isValidKey(requestKey)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                               .body("Invalid " + IDEMPOTENCY_KEY_HEADER));
         }
 
         try {
@@ -107,17 +160,72 @@ public class PacController {
             pac.setEndTime(LocalTime.parse(pacData.get("endTime").split("T")[1], 
                     formatter));
             pac.setPouchesChecked(Integer.parseInt(pacData.get("pouchesChecked")));
+            pac.setRequestKey(requestKey);
 
-            pacService.submitPac(pac, authentication.getName());
-
-            return ResponseEntity.ok("Questions submitted successfully");
+            String username = authentication.getName();
+            CompletableFuture<Boolean> replayed = requestKey != null
+                ? deduplicator.submitOnce(username, requestKey, () -> write(pac, username))
+                : write(pac, username).thenApply(inserted -> !inserted);
+            return replayed
+                .orTimeout(ackTimeoutMillis, TimeUnit.MILLISECONDS)
+                .handle(this::submissionResponse);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busyResponse(e));
         } catch (Exception e) {
             logger.error("Error submitting questions", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                               .body("Error submitting questions: " + e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                               .body("Error submitting questions: " + e.getMessage()));
         }
     }
 
+    /**
+     * Writes a submission through the batched or the direct path.
+     *
+     * @returns Future completing true if a row was inserted
+     */
+    private CompletableFuture<Boolean> write(Pac pac, String username) {
+        if (ingestionService != null) {
+            return ingestionService.submit(pac, username).thenApply(ignored -> true);
+        }
+        return CompletableFuture.completedFuture(pacService.submitPac(pac, username));
+    }
+
+    /**
+     * Maps the outcome of a submission to a response.
+     *
+     * @param replayed Whether an earlier submission with the same key was answered
+     * @param error Failure of the submission, null on commit
+     * @returns 200 on commit, 202 if still pending, 503 if rejected, 500 on failure
+     */
+    private ResponseEntity<String> submissionResponse(Boolean replayed, Throwable error) {
+        if (error == null) {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (Boolean.TRUE.equals(replayed)) {
+                response.header(REPLAYED_HEADER, "true");
+            }
+            return response.body("Questions submitted successfully");
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+            ? error.getCause() : error;
+        if (cause instanceof TimeoutException) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                               .body("Submission queued, not yet confirmed");
+        }
+        if (cause instanceof RejectedExecutionException rejected) {
+            return busyResponse(rejected);
+        }
+        logger.error("Error submitting questions", cause);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                           .body("Error submitting questions: " + cause.getMessage());
+    }
+
+    private ResponseEntity<String> busyResponse(RejectedExecutionException e) {
+        logger.warn("PAC submission rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                           .header("Retry-After", "1")
+                           .body("Server is busy, please retry");
+    }
+
     /* .... Response Management .... */
     /**
      * Deletes a PAC response record.
@@ -203,8 +311,66 @@ public class PacController {
         }
     }
 
+    /* .... Response Export .... */
+    /**
+     * Streams every PAC response matching the view-responses filters.
+     *
+     * @param format csv (default) or ndjson
+     * @param nameFilter Optional username filter
+     * @param store Optional store filter
+     * @param month Optional month filter (1-12)
+     * @param acceptEncoding Response is gzipped when the client accepts gzip
+     * @returns Rows streamed from a database cursor as they are read
+     *
+     * @secure Requires ADMIN or MODERATOR role
+     *
+     * PERFORMANCE:
+     * - No paging or count query; one cursor over the whole result
+     * - Constant heap regardless of row count
+     */
+    @GetMapping("/view-responses/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR')")
+    public ResponseEntity<StreamingResponseBody> exportResponses(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String nameFilter,
+            @RequestParam(required = false) String store,
+            @RequestParam(required = false) String month,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        PacExportService.Format exportFormat;
+        Integer monthValue;
+        try {
+            exportFormat = PacExportService.Format.parse(format);
+            monthValue = (month != null && !month.isEmpty() &&
+                    !month.equals("null")) ? Integer.parseInt(month) : null;
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid export request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        String filename = "pac-responses-" + LocalDate.now() + "." + exportFormat.getExtension();
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192)) {
+                    exportService.export(gzipOut, exportFormat, nameFilter, store, monthValue);
+                }
+            } else {
+                exportService.export(out, exportFormat, nameFilter, store, monthValue);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     /* TODO: Future Enhancements
-     * - Add CSV/Excel export functionality
+     * - Add Excel export functionality
      * - Implement response caching
      * - Add batch operations for admins
      * - Enhance filtering capabilities
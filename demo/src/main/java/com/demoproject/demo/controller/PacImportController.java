@@ -0,0 +1,115 @@
+/* ==========================================================================
+ * PAC Bulk Import Controller Module
+ *
+ * PURPOSE: Admin endpoints for CSV backfills of PAC data
+ * DEPENDENCIES: Spring MVC, Spring Security, PacImportService
+ * SCOPE: /api/pac/import
+ *
+ * SECURITY CONSIDERATIONS:
+ * - ADMIN role required for every endpoint
+ * - Uploads are streamed, never buffered in memory
+ * ========================================================================== */
+
+package com.demoproject.demo.controller;
+
+import com.demoproject.demo.dto.PacImportStatusDTO;
+import com.demoproject.demo.services.PacImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+import java.util.Map;
+
+@Controller
+public class PacImportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(PacImportController.class);
+    private final PacImportService importService;
+
+    public PacImportController(PacImportService importService) {
+        this.importService = importService;
+    }
+
+    /* .... Import .... */
+    /**
+     * Imports PAC rows from a CSV request body.
+     *
+     * @param request Raw request; the body is read as a stream
+     * @returns Final import status, including the import id for its error report
+     *
+     * RESPONSES:
+     * - 200 once the import has finished (rejected rows do not fail it)
+     * - 400 on an empty file or missing header columns
+     * - 409 while another import is running
+     *
+     * @example curl -X POST -H 'Content-Type: text/csv' --data-binary @pacs.csv /api/pac/import
+     */
+    @PostMapping(value = "/api/pac/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    @ResponseBody
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importPacs(HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(importService.importCsv(request.getInputStream()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("PAC import failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                               .body(Map.of("error", "PAC import failed: " + e.getMessage()));
+        }
+    }
+
+    /* .... Progress .... */
+    /**
+     * @returns Status of recent imports, newest first
+     */
+    @GetMapping("/api/pac/import")
+    @ResponseBody
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<PacImportStatusDTO> listImports() {
+        return importService.getRecentImports();
+    }
+
+    /**
+     * @param id Import identifier
+     * @returns Live progress of the import, 404 if unknown
+     */
+    @GetMapping("/api/pac/import/{id}")
+    @ResponseBody
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PacImportStatusDTO> getImport(@PathVariable String id) {
+        return importService.getImport(id)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * @param id Import identifier
+     * @returns CSV of rejected rows (line, error), 404 if unknown
+     */
+    @GetMapping(value = "/api/pac/import/{id}/errors", produces = "text/csv")
+    @ResponseBody
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Resource> getImportErrors(@PathVariable String id) {
+        return importService.getErrorReport(id)
+            .<ResponseEntity<Resource>>map(path -> ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"pac-import-" + id + "-errors.csv\"")
+                .body(new FileSystemResource(path)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,39 @@
+package com.demoproject.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/* ==========================================================================
+ * PacImportStatusDTO - Progress of a bulk PAC import
+ *
+ * PURPOSE: Reports how far a CSV import has got and how many rows it rejected
+ * USAGE: Returned by the bulk import endpoints while and after an import runs
+ *
+ * @note Rejected rows are listed in the job's error report, not here
+ * ========================================================================== */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PacImportStatusDTO {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private String id;
+    private Status status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    /* .... Progress Counters .... */
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private long chunksCommitted;
+
+    /**
+     * @param message Reason the whole import failed, null otherwise
+     */
+    private String message;
+}
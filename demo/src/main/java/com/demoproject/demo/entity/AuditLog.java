@@ -29,8 +29,13 @@ import java.time.temporal.ChronoUnit;
 public class AuditLog {
 
     /* .... Core Identifiers .... */
+    /**
+     * @param id Drawn from audit_logs_id_seq in blocks of 50
+     * @note Sequence ids keep audit inserts batchable
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_logs_id_gen")
+    @SequenceGenerator(name = "audit_logs_id_gen", sequenceName = "audit_logs_id_seq", allocationSize = 50)
     private Long id;
 
     /* .... Audit Details .... */
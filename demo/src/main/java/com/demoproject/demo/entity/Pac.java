@@ -29,12 +29,15 @@ import java.time.temporal.ChronoUnit;
  * - Uses lazy loading for user relationship
  * - Automatically sets submission timestamp
  * - All timestamps truncated to seconds
+ * - A client request key is stored at most once per user
  * -------------------------------------------------------------------------- */
 @Entity
 @Table(name = "pac", indexes = {
     @Index(name = "idx_pac_user", columnList = "user_id"),
     @Index(name = "idx_pac_store", columnList = "store"),
     @Index(name = "idx_pac_submission_date", columnList = "submission_date")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_pac_user_request_key", columnNames = {"user_id", "request_key"})
 })
 @Data
 @NoArgsConstructor
@@ -42,8 +45,14 @@ import java.time.temporal.ChronoUnit;
 public class Pac {
 
     /* .... Core Identifiers .... */
+    /**
+     * @param id Drawn from pac_id_seq in blocks of 50
+     * @note Sequence ids let Hibernate batch inserts; IDENTITY forces one
+     *       round trip per row. See pooled-sequences.sql for existing tables
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pac_id_gen")
+    @SequenceGenerator(name = "pac_id_gen", sequenceName = "pac_id_seq", allocationSize = 50)
     private Long id;
 
     /* .... Relationships .... */
@@ -95,6 +104,14 @@ public class Pac {
     @Column(name = "store", nullable = false)
     private String store;
 
+    /* .... Idempotency .... */
+    /**
+     * @param requestKey Client Idempotency-Key of the submission, if sent
+     * @note Unique per user, so a retried submission can never insert twice
+     */
+    @Column(name = "request_key", length = 64)
+    private String requestKey;
+
     /* .... Lifecycle Hooks .... */
     /**
      * Sets submission timestamp on entity creation
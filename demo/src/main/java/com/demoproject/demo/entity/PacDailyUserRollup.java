@@ -0,0 +1,66 @@
+/* ==========================================================================
+ * PAC Daily User Rollup Entity Module
+ * 
+ * PURPOSE: Pre-aggregated PAC counters per user, store and day
+ * DEPENDENCIES: JPA, Lombok
+ * SCOPE: Read model for productivity queries and the 7-day chart
+ * ========================================================================== */
+
+package com.demoproject.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/* --------------------------------------------------------------------------
+ * Core Rollup Entity Definition
+ * 
+ * FUNCTIONALITY:
+ * - One row per (user, store, day) holding submissions, pouches and seconds
+ * - Maintained by PacRollupService in the same transaction as each PAC write
+ * - Rebuilt from the pac table by PacRollupService.rebuild()
+ * 
+ * IMPORTANT NOTES:
+ * - Query cost scales with days x users instead of raw submissions
+ * - Rows are removed once their submissions drop to zero
+ * -------------------------------------------------------------------------- */
+@Entity
+@Table(name = "pac_daily_user_rollup", indexes = {
+    @Index(name = "idx_pac_rollup_day", columnList = "rollup_day")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PacDailyUserRollup {
+
+    /**
+     * Day used for PAC rows that have no submission_date (legacy migrated data)
+     */
+    public static final LocalDate UNDATED = LocalDate.EPOCH;
+
+    /* .... Composite Key .... */
+    @EmbeddedId
+    private PacDailyUserRollupId id;
+
+    /* .... Counters .... */
+    /**
+     * @param submissions Number of PAC sessions
+     */
+    @Column(name = "submissions", nullable = false)
+    private long submissions;
+
+    /**
+     * @param pouchesChecked Sum of pouches checked
+     */
+    @Column(name = "pouches_checked", nullable = false)
+    private long pouchesChecked;
+
+    /**
+     * @param totalSeconds Sum of (end_time - start_time) in seconds
+     */
+    @Column(name = "total_seconds", nullable = false)
+    private long totalSeconds;
+}
@@ -0,0 +1,44 @@
+/* ==========================================================================
+ * PAC Daily User Rollup Key Module
+ * 
+ * PURPOSE: Composite key of the daily PAC rollup (user, store, day)
+ * DEPENDENCIES: JPA, Lombok
+ * SCOPE: Embedded identifier of PacDailyUserRollup
+ * ========================================================================== */
+
+package com.demoproject.demo.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PacDailyUserRollupId implements Serializable {
+
+    /**
+     * @param userId Owner of the PAC sessions
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * @param store Store the sessions were recorded at
+     */
+    @Column(name = "store", nullable = false)
+    private String store;
+
+    /**
+     * @param day Calendar day of submission_date
+     * @note PAC rows without a submission date are kept under PacDailyUserRollup.UNDATED
+     */
+    @Column(name = "rollup_day", nullable = false)
+    private LocalDate day;
+}
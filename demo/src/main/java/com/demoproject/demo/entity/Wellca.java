@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
@@ -14,19 +15,22 @@ import java.time.LocalDate;
  * @Entity Maps this class to the wellca_entries database table
  * @Table Specifies the table name as "wellca_entries"
  * @Data Lombok annotation for getters, setters, equals, hashCode and toString
+ * Serializable so cached entries can be shared through the L2 cache tier
  */
 @Entity
 @Table(name = "wellca_entries")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class Wellca {
+public class Wellca implements Serializable {
 
     /**
-     * Unique identifier for each entry
+     * Unique identifier for each entry, drawn from wellca_entries_id_seq
+     * in blocks of 50 so inserts can be batched
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wellca_entries_id_gen")
+    @SequenceGenerator(name = "wellca_entries_id_gen", sequenceName = "wellca_entries_id_seq", allocationSize = 50)
     private Long id;
 
     /* ========== Delivery Tracking Section ========== */
@@ -0,0 +1,64 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/* ==========================================================================
+ * Leaderboard Cursor Value Object
+ *
+ * PURPOSE: Position in the productivity leaderboard for keyset pagination
+ * USAGE: Encoded into the opaque token returned as nextCursor and decoded
+ *        from the "after" parameter of the next request
+ *
+ * @note Leaderboard order is totalSubmissions DESC, username ASC, so the
+ *       next page holds every row strictly after (totalSubmissions, username)
+ * ========================================================================== */
+@Value
+public class LeaderboardCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * Submissions of the last row on the previous page
+     */
+    long totalSubmissions;
+
+    /**
+     * Username of the last row on the previous page
+     */
+    String username;
+
+    /**
+     * @param last Last row of a page
+     * @returns Cursor positioned after that row
+     */
+    public static LeaderboardCursor after(UserProductivityDTO last) {
+        return new LeaderboardCursor(last.getTotalSubmissions(), last.getUsername());
+    }
+
+    /* .... Token Encoding .... */
+
+    /**
+     * @returns URL-safe opaque token
+     */
+    public String encode() {
+        return ENCODER.encodeToString((totalSubmissions + ":" + username).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token Token produced by encode()
+     * @returns Decoded cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static LeaderboardCursor decode(String token) {
+        String raw = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+        int separator = raw.indexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Malformed leaderboard cursor");
+        }
+        return new LeaderboardCursor(Long.parseLong(raw.substring(0, separator)), raw.substring(separator + 1));
+    }
+}
@@ -0,0 +1,27 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import lombok.Value;
+
+/* ==========================================================================
+ * Leaderboard Entry Data Transfer Object
+ *
+ * PURPOSE: One user's position on a metric's leaderboard
+ * USAGE: Response rows of /api/productivity/leaderboard
+ * ========================================================================== */
+@Value
+public class LeaderboardEntryDTO {
+
+    LeaderboardMetric metric;
+
+    /**
+     * One-based position; ties on score are broken by username
+     */
+    int rank;
+
+    /**
+     * Value of the metric the user is ranked by
+     */
+    double score;
+
+    UserProductivityDTO user;
+}
@@ -0,0 +1,39 @@
+package com.demoproject.demo.pacmedproductivity;
+
+/* ==========================================================================
+ * Leaderboard Metric
+ *
+ * PURPOSE: Scores the in-memory leaderboards are ranked by
+ * USAGE: Selects a RankedLeaderboard in ProductivityAccumulator and the
+ *        "metric" parameter of /api/productivity/leaderboard
+ * ========================================================================== */
+public enum LeaderboardMetric {
+
+    SUBMISSIONS,
+    POUCHES_CHECKED,
+    POUCHES_PER_HOUR;
+
+    /**
+     * @param totals User's running totals
+     * @returns Score to rank the user by, higher ranks first
+     */
+    public double score(ProductivityTotals totals) {
+        return switch (this) {
+            case SUBMISSIONS -> totals.getSubmissions();
+            case POUCHES_CHECKED -> totals.getPouchesChecked();
+            case POUCHES_PER_HOUR -> totals.getAvgPouchesPerHour();
+        };
+    }
+
+    /**
+     * @param user Productivity row
+     * @returns Same score read back from a DTO
+     */
+    public double score(UserProductivityDTO user) {
+        return switch (this) {
+            case SUBMISSIONS -> user.getTotalSubmissions();
+            case POUCHES_CHECKED -> user.getTotalPouchesChecked();
+            case POUCHES_PER_HOUR -> user.getAvgPouchesPerHour();
+        };
+    }
+}
@@ -0,0 +1,39 @@
+/* =============================================================================
+ * Overall Productivity Projection
+ * =============================================================================
+ * PURPOSE: Receives the single-row overall aggregate from PacRepository
+ * USAGE: Returned by PacRepository.getOverallProductivityTotals()
+ *
+ * @note Interface projection, so no Pac or User entity is ever hydrated
+ * @note Averages are weighted by pouches/time, not averaged per user
+ */
+
+package com.demoproject.demo.pacmedproductivity;
+
+public interface OverallProductivityProjection {
+
+    /**
+     * @returns Number of PAC submissions across all users
+     */
+    long getTotalSubmissions();
+
+    /**
+     * @returns Pouches checked across all users
+     */
+    long getTotalPouchesChecked();
+
+    /**
+     * @returns Sum of session durations in seconds
+     */
+    double getTotalSeconds();
+
+    /**
+     * @returns Total seconds divided by total pouches, 0 if none
+     */
+    double getAvgTimePerPouch();
+
+    /**
+     * @returns Total pouches per total hours, 0 if no time recorded
+     */
+    double getAvgPouchesPerHour();
+}
@@ -0,0 +1,75 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import com.demoproject.demo.entity.Pac;
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/* ==========================================================================
+ * PAC Change Event
+ *
+ * PURPOSE: Describes one PAC row being added or removed
+ * USAGE: Published by PacService inside the write transaction and consumed
+ *        by @TransactionalEventListener methods once the commit succeeds
+ *
+ * @note Carries plain values only, so listeners never touch lazy entities
+ * ========================================================================== */
+@Value
+public class PacChangeEvent {
+
+    public enum ChangeType { SUBMITTED, DELETED }
+
+    ChangeType changeType;
+    String username;
+    String store;
+    LocalDateTime submissionDate;
+    long pouchesChecked;
+    long durationSeconds;
+
+    /* .... Factories .... */
+
+    /**
+     * @param pac Freshly persisted entry with its user attached
+     * @returns Event describing the insert
+     */
+    public static PacChangeEvent submitted(Pac pac) {
+        return of(ChangeType.SUBMITTED, pac, pac.getUser().getUsername());
+    }
+
+    /**
+     * @param pac Freshly persisted entry whose user may be an uninitialized reference
+     * @param username Owner of the entry, so the reference is never loaded
+     * @returns Event describing the insert
+     */
+    public static PacChangeEvent submitted(Pac pac, String username) {
+        return of(ChangeType.SUBMITTED, pac, username);
+    }
+
+    /**
+     * @param pac Entry about to be removed, still attached to its session
+     * @returns Event describing the delete
+     */
+    public static PacChangeEvent deleted(Pac pac) {
+        return of(ChangeType.DELETED, pac, pac.getUser().getUsername());
+    }
+
+    private static PacChangeEvent of(ChangeType changeType, Pac pac, String username) {
+        long seconds = pac.getStartTime() != null && pac.getEndTime() != null
+            ? Duration.between(pac.getStartTime(), pac.getEndTime()).getSeconds()
+            : 0L;
+        long pouches = pac.getPouchesChecked() != null ? pac.getPouchesChecked() : 0L;
+        return new PacChangeEvent(changeType, username, pac.getStore(),
+            pac.getSubmissionDate(), pouches, seconds);
+    }
+
+    /* .... Accumulation .... */
+
+    /**
+     * @returns Signed totals to add to running sums (negative for deletions)
+     */
+    public ProductivityTotals toDelta() {
+        long sign = changeType == ChangeType.SUBMITTED ? 1L : -1L;
+        return new ProductivityTotals(sign, sign * pouchesChecked, sign * durationSeconds);
+    }
+}
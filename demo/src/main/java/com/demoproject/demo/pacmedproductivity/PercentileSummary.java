@@ -0,0 +1,26 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import lombok.Value;
+
+/* ==========================================================================
+ * Percentile Summary Value Object
+ *
+ * PURPOSE: p50/p90/p99 of one per-submission metric
+ * USAGE: Read from a ProductivityHistograms histogram
+ *
+ * @note Values carry the histogram's ~1% relative precision
+ * ========================================================================== */
+@Value
+public class PercentileSummary {
+
+    public static final PercentileSummary EMPTY = new PercentileSummary(0L, 0.0, 0.0, 0.0);
+
+    /**
+     * Submissions recorded in the histogram
+     */
+    long count;
+
+    double p50;
+    double p90;
+    double p99;
+}
@@ -0,0 +1,322 @@
+/* =============================================================================
+ * Productivity Accumulator
+ * =============================================================================
+ * PURPOSE: Keeps per-user productivity totals in memory so reads never rescan
+ *          the PAC table
+ * DEPENDENCIES:
+ * - PacRepository (one aggregate query at startup)
+ * - PacChangeEvent (O(1) update per committed submit/delete)
+ *
+ * @note Reads are lock-free; updates take a shared lock so a rebuild can
+ *       swap in fresh totals atomically
+ * @note Rebuilds run behind ProductivityCommitGate, so a change committed
+ *       around the snapshot is counted exactly once
+ * @note One RankedLeaderboard per LeaderboardMetric is repositioned in
+ *       O(log n) on every update, so ranked reads never sort
+ */
+package com.demoproject.demo.pacmedproductivity;
+
+import com.demoproject.demo.repository.PacRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+@Component
+public class ProductivityAccumulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductivityAccumulator.class);
+
+    /**
+     * Leaderboard order used by every paged productivity view
+     */
+    public static final Comparator<UserProductivityDTO> RANKING =
+        Comparator.comparingLong(UserProductivityDTO::getTotalSubmissions).reversed()
+            .thenComparing(UserProductivityDTO::getUsername);
+
+    private final PacRepository pacRepository;
+    private final ProductivityCommitGate commitGate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final ConcurrentMap<String, ProductivityTotals> userTotals = new ConcurrentHashMap<>();
+    private final AtomicReference<ProductivityTotals> overallTotals = new AtomicReference<>(ProductivityTotals.EMPTY);
+    private volatile boolean seeded = false;
+
+    // Leaderboards change together with userTotals; readers share, writers exclude
+    private final ReadWriteLock leaderboardLock = new ReentrantReadWriteLock();
+    private final Map<LeaderboardMetric, RankedLeaderboard> leaderboards = new EnumMap<>(LeaderboardMetric.class);
+
+    /**
+     * @param pacRepository Source of the startup aggregate
+     * @param commitGate Holds back PAC commits while a rebuild takes its snapshot
+     * @param transactionManager Transaction manager for the seed query
+     */
+    public ProductivityAccumulator(PacRepository pacRepository, ProductivityCommitGate commitGate,
+                                   PlatformTransactionManager transactionManager) {
+        this.pacRepository = pacRepository;
+        this.commitGate = commitGate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // Own connection and snapshot, even when called from another transaction's after-commit
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (LeaderboardMetric metric : LeaderboardMetric.values()) {
+            leaderboards.put(metric, new RankedLeaderboard());
+        }
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Seeding
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Seeds the totals once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        rebuild();
+    }
+
+    /**
+     * Replaces all totals with a fresh aggregate from the database
+     * @note Blocks concurrent updates and PAC commits for the duration of one GROUP BY query
+     * @note On failure the accumulator stays unseeded and callers fall back to the database
+     */
+    public void rebuild() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> commitGate.whileClosed(this::reload));
+        } catch (Exception e) {
+            logger.error("Failed to seed productivity accumulator, reads will use the database", e);
+        }
+    }
+
+    private void reload() {
+        rebuildLock.writeLock().lock();
+        try {
+            List<Object[]> rows = pacRepository.getUserProductivityTotals();
+            Map<String, ProductivityTotals> fresh = new HashMap<>();
+            ProductivityTotals overall = ProductivityTotals.EMPTY;
+            for (Object[] row : rows) {
+                ProductivityTotals totals = new ProductivityTotals(
+                    ((Number) row[1]).longValue(),
+                    ((Number) row[2]).longValue(),
+                    ((Number) row[3]).longValue()
+                );
+                fresh.put((String) row[0], totals);
+                overall = overall.plus(totals);
+            }
+            userTotals.clear();
+            userTotals.putAll(fresh);
+            overallTotals.set(overall);
+            rebuildLeaderboards(fresh);
+            seeded = true;
+            logger.info("Productivity accumulator seeded with {} users and {} submissions",
+                fresh.size(), overall.getSubmissions());
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Incremental Updates
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Applies a committed PAC change
+     * @param event Change published by PacService
+     * @note Ordered first so later listeners observe the updated totals
+     */
+    @TransactionalEventListener
+    @Order(0)
+    public void onPacChange(PacChangeEvent event) {
+        apply(event.getUsername(), event.toDelta());
+    }
+
+    /**
+     * Adds a signed delta to one user and to the overall totals
+     * @param username Target user
+     * @param delta Signed totals from PacChangeEvent.toDelta()
+     */
+    public void apply(String username, ProductivityTotals delta) {
+        rebuildLock.readLock().lock();
+        try {
+            userTotals.compute(username, (key, current) -> {
+                ProductivityTotals updated = (current != null ? current : ProductivityTotals.EMPTY).plus(delta);
+                ProductivityTotals stored = updated.isEmpty() ? null : updated;
+                reposition(key, current, stored);
+                return stored;
+            });
+            overallTotals.accumulateAndGet(delta, ProductivityTotals::plus);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Leaderboard Maintenance
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Moves one user on every leaderboard
+     * @param username Target user
+     * @param previous Totals before the update, null if unranked
+     * @param current Totals after the update, null if the user drops off
+     * @note Called inside userTotals.compute, so updates to one user never interleave
+     */
+    private void reposition(String username, ProductivityTotals previous, ProductivityTotals current) {
+        leaderboardLock.writeLock().lock();
+        try {
+            leaderboards.forEach((metric, board) -> {
+                if (previous != null) {
+                    board.remove(username, metric.score(previous));
+                }
+                if (current != null) {
+                    board.insert(username, metric.score(current), current);
+                }
+            });
+        } finally {
+            leaderboardLock.writeLock().unlock();
+        }
+    }
+
+    private void rebuildLeaderboards(Map<String, ProductivityTotals> totals) {
+        leaderboardLock.writeLock().lock();
+        try {
+            leaderboards.forEach((metric, board) -> {
+                board.clear();
+                totals.forEach((username, userTotals) -> board.insert(username, metric.score(userTotals), userTotals));
+            });
+        } finally {
+            leaderboardLock.writeLock().unlock();
+        }
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Reads
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * @returns True once the startup aggregate has been loaded
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * @returns Totals across every user
+     */
+    public ProductivityTotals getOverallTotals() {
+        return overallTotals.get();
+    }
+
+    /**
+     * @param username Target user
+     * @returns Totals for the user, empty if they have no submissions
+     */
+    public Optional<ProductivityTotals> getUserTotals(String username) {
+        return Optional.ofNullable(userTotals.get(username));
+    }
+
+    /**
+     * @returns Every user with submissions, in leaderboard order
+     */
+    public List<UserProductivityDTO> getRankedUsers() {
+        return readBoard(LeaderboardMetric.SUBMISSIONS, board -> board.range(0, board.size()));
+    }
+
+    /**
+     * @param cursor Position to seek past, null for the first page
+     * @param limit Maximum rows to return
+     * @returns Up to limit rows strictly after the cursor, in leaderboard order
+     * @note O(log n + limit)
+     */
+    public List<UserProductivityDTO> getRankedAfter(LeaderboardCursor cursor, int limit) {
+        return readBoard(LeaderboardMetric.SUBMISSIONS, board -> {
+            int from = cursor != null ? board.countNotAfter(cursor.getTotalSubmissions(), cursor.getUsername()) : 0;
+            return board.range(from, limit);
+        });
+    }
+
+    /**
+     * @returns Number of users on the leaderboard
+     */
+    public int getUserCount() {
+        return userTotals.size();
+    }
+
+    /**
+     * @param pageable Page to slice from the leaderboard
+     * @returns Page of productivity DTOs in leaderboard order
+     * @note O(log n + page size)
+     */
+    public Page<UserProductivityDTO> getPage(Pageable pageable) {
+        return readBoard(LeaderboardMetric.SUBMISSIONS, board -> {
+            int from = (int) Math.min(pageable.getOffset(), board.size());
+            return new PageImpl<>(board.range(from, pageable.getPageSize()), pageable, board.size());
+        });
+    }
+
+    /**
+     * @param metric Score to rank by
+     * @param k Number of leaders to return
+     * @returns Top k users with their one-based rank
+     */
+    public List<LeaderboardEntryDTO> getTop(LeaderboardMetric metric, int k) {
+        List<UserProductivityDTO> leaders = readBoard(metric, board -> board.range(0, k));
+        List<LeaderboardEntryDTO> entries = new ArrayList<>(leaders.size());
+        for (int i = 0; i < leaders.size(); i++) {
+            UserProductivityDTO user = leaders.get(i);
+            entries.add(new LeaderboardEntryDTO(metric, i + 1, metric.score(user), user));
+        }
+        return entries;
+    }
+
+    /**
+     * @param metric Score to rank by
+     * @param username Target user
+     * @returns The user's one-based rank, empty if they have no submissions
+     */
+    public Optional<LeaderboardEntryDTO> getRank(LeaderboardMetric metric, String username) {
+        return readBoard(metric, board -> {
+            ProductivityTotals totals = userTotals.get(username);
+            if (totals == null) {
+                return Optional.<LeaderboardEntryDTO>empty();
+            }
+            double score = metric.score(totals);
+            int rank = board.countBefore(score, username) + 1;
+            return Optional.of(new LeaderboardEntryDTO(metric, rank, score, totals.toDTO(username)));
+        });
+    }
+
+    private <T> T readBoard(LeaderboardMetric metric, Function<RankedLeaderboard, T> read) {
+        leaderboardLock.readLock().lock();
+        try {
+            return read.apply(leaderboards.get(metric));
+        } finally {
+            leaderboardLock.readLock().unlock();
+        }
+    }
+}
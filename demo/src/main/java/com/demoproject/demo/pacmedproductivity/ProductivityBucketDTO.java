@@ -0,0 +1,57 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/* ==========================================================================
+ * Productivity Bucket Data Transfer Object
+ *
+ * PURPOSE: Productivity totals for one hour, day or week
+ * USAGE: Element of ProductivityTimeseriesDTO.buckets
+ *
+ * @note Empty buckets are returned with zero counts, never omitted
+ * ========================================================================== */
+@Value
+public class ProductivityBucketDTO {
+
+    /**
+     * Inclusive start of the bucket
+     */
+    LocalDateTime start;
+
+    /**
+     * PAC submissions in the bucket
+     */
+    long submissions;
+
+    /**
+     * Pouches checked in the bucket
+     */
+    long pouchesChecked;
+
+    /**
+     * Seconds spent per pouch within the bucket
+     */
+    double avgTimePerPouch;
+
+    /**
+     * Pouches checked per hour within the bucket
+     */
+    double avgPouchesPerHour;
+
+    /**
+     * @param start Bucket start
+     * @param totals Sums for the bucket
+     * @returns Bucket with derived averages
+     */
+    public static ProductivityBucketDTO of(LocalDateTime start, ProductivityTotals totals) {
+        return new ProductivityBucketDTO(
+            start,
+            totals.getSubmissions(),
+            totals.getPouchesChecked(),
+            totals.getAvgTimePerPouch(),
+            totals.getAvgPouchesPerHour()
+        );
+    }
+}
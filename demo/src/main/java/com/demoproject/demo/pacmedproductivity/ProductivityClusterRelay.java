@@ -0,0 +1,167 @@
+/* =============================================================================
+ * Productivity Cluster Relay
+ * =============================================================================
+ * PURPOSE: Keeps productivity totals and SSE streams consistent across app
+ *          instances by exchanging committed PAC changes over PgNotificationBus
+ * DEPENDENCIES:
+ * - PgNotificationBus (PostgreSQL LISTEN/NOTIFY)
+ * - ProductivityAccumulator and UserProductivityService (local apply/broadcast)
+ * - ProductivityTimeseriesService (local timeseries cache eviction)
+ * - ProductivityHistograms (local percentile distributions)
+ * - StoreProductivityService (local store cache eviction and streams)
+ * - ProductivityRefresher (local rebuilds)
+ *
+ * FLOW:
+ * 1. A local PAC change commits and is published on the "productivity_changes" channel
+ * 2. Other nodes apply the delta to their accumulator
+ * 3. They then run the same cache eviction and coalesced broadcast as a local change
+ * 4. Bulk writes that bypass PacChangeEvent (CSV imports, user deletion) publish on
+ *    "productivity_rebuilds" instead, and other nodes rebuild from the database
+ * 5. Each time the bus (re)connects, or another node reports lost messages,
+ *    this node rebuilds from the database too, since lost deltas never arrive
+ * 6. Every productivity.reconcile-ms it also rebuilds on its own, which bounds
+ *    how long a miscounted relayed change (see ProductivityCommitGate) survives
+ *
+ * @note Only enabled together with the bus (cluster.bus.enabled=true)
+ */
+package com.demoproject.demo.pacmedproductivity;
+
+import com.demoproject.demo.connections.PgNotificationBus;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+
+@Component
+@ConditionalOnProperty(name = "cluster.bus.enabled", havingValue = "true")
+public class ProductivityClusterRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductivityClusterRelay.class);
+    public static final String CHANNEL = "productivity_changes";
+    public static final String REBUILD_CHANNEL = "productivity_rebuilds";
+
+    private final PgNotificationBus bus;
+    private final ProductivityAccumulator accumulator;
+    private final UserProductivityService userProductivityService;
+    private final ProductivityTimeseriesService timeseriesService;
+    private final ProductivityHistograms histograms;
+    private final StoreProductivityService storeProductivityService;
+    private final ProductivityRefresher refresher;
+
+    /**
+     * @param bus Cross-node notification bus
+     * @param accumulator Local in-memory totals
+     * @param userProductivityService Local cache eviction and SSE signalling
+     * @param timeseriesService Local timeseries cache eviction
+     * @param histograms Local percentile distributions
+     * @param storeProductivityService Local store cache eviction and streams
+     * @param refresher Local rebuild from the database
+     */
+    public ProductivityClusterRelay(PgNotificationBus bus,
+                                    ProductivityAccumulator accumulator,
+                                    UserProductivityService userProductivityService,
+                                    ProductivityTimeseriesService timeseriesService,
+                                    ProductivityHistograms histograms,
+                                    StoreProductivityService storeProductivityService,
+                                    ProductivityRefresher refresher) {
+        this.bus = bus;
+        this.accumulator = accumulator;
+        this.userProductivityService = userProductivityService;
+        this.timeseriesService = timeseriesService;
+        this.histograms = histograms;
+        this.storeProductivityService = storeProductivityService;
+        this.refresher = refresher;
+        bus.subscribe(CHANNEL, this::onRemoteChange);
+        bus.subscribe(REBUILD_CHANNEL, message -> onRemoteRebuild());
+        bus.onResync(this::onBusResync);
+    }
+
+    /**
+     * Publishes a committed local change to the other nodes
+     * @param event Committed PAC change
+     * @note Runs after the local listeners, never inside the write transaction
+     */
+    @TransactionalEventListener
+    @Order(20)
+    public void onPacChange(PacChangeEvent event) {
+        bus.publish(CHANNEL, event);
+    }
+
+    /**
+     * Tells the other nodes to rebuild their totals after a bulk write
+     * @note Call after the bulk write has committed
+     */
+    public void publishRebuild() {
+        bus.publish(REBUILD_CHANNEL, bus.getNodeId());
+    }
+
+    /**
+     * Rebuilds local totals and caches after a bulk write on another node
+     * @note Runs on the bus thread; imports are rare, so a rebuild briefly
+     *       delaying other bus messages is acceptable
+     */
+    private void onRemoteRebuild() {
+        refresher.refreshLocal();
+        logger.info("Rebuilt productivity after a bulk write on another node");
+    }
+
+    /**
+     * Resynchronizes after the bus (re)connects or another node lost messages
+     * @note Runs on the bus thread after LISTEN, so changes committed during the
+     *       rebuild are still delivered afterwards; one committed between the
+     *       LISTEN and the snapshot can be counted twice (see ProductivityCommitGate)
+     */
+    private void onBusResync() {
+        refresher.refreshLocal();
+        logger.info("Rebuilt productivity after the notification bus resynchronized");
+    }
+
+    /**
+     * Rebuilds from the database every productivity.reconcile-ms
+     * @note Runs on the task scheduler; the commit gate orders it against local
+     *       commits like any other rebuild
+     */
+    @Scheduled(initialDelayString = "${productivity.reconcile-ms:900000}",
+               fixedDelayString = "${productivity.reconcile-ms:900000}")
+    public void reconcile() {
+        refresher.refreshLocal();
+        logger.debug("Reconciled productivity with the database");
+    }
+
+    /**
+     * Applies a change committed on another node as if it happened here
+     * @param message Serialized PacChangeEvent
+     */
+    private void onRemoteChange(JsonNode message) {
+        PacChangeEvent event = toEvent(message);
+        accumulator.apply(event.getUsername(), event.toDelta());
+        histograms.apply(event);
+        userProductivityService.onPacChange(event);
+        timeseriesService.onPacChange(event);
+        storeProductivityService.onPacChange(event);
+        logger.debug("Applied remote {} for user {}", event.getChangeType(), event.getUsername());
+    }
+
+    private PacChangeEvent toEvent(JsonNode message) {
+        String submissionDate = textOrNull(message.path("submissionDate"));
+        return new PacChangeEvent(
+            PacChangeEvent.ChangeType.valueOf(message.path("changeType").asText()),
+            message.path("username").asText(),
+            textOrNull(message.path("store")),
+            submissionDate != null ? LocalDateTime.parse(submissionDate) : null,
+            message.path("pouchesChecked").asLong(),
+            message.path("durationSeconds").asLong()
+        );
+    }
+
+    private static String textOrNull(JsonNode node) {
+        return node.isTextual() ? node.asText() : null;
+    }
+}
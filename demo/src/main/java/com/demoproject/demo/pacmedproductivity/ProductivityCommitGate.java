@@ -0,0 +1,104 @@
+/* =============================================================================
+ * Productivity Commit Gate
+ * =============================================================================
+ * PURPOSE: Keeps in-memory rebuilds and committed PAC changes from overlapping,
+ *          so a change is counted by the rebuild's snapshot or by its
+ *          after-commit listeners, never by both or neither
+ * DEPENDENCIES:
+ * - PacChangeEvent (marks the transactions that change productivity)
+ * - Spring transaction synchronization
+ *
+ * FLOW:
+ * 1. A transaction publishing a PacChangeEvent passes the gate just before it
+ *    commits and holds it until every after-commit listener has run
+ * 2. A rebuild closes the gate: it waits for those transactions to finish,
+ *    then takes its snapshot while new commits queue at the gate
+ *
+ * @note Commits wait for at most one rebuild query; transactions that do not
+ *       change PAC data never touch the gate
+ * @note Changes relayed from other nodes arrive outside any local transaction;
+ *       one committed just before a local rebuild's snapshot can still be
+ *       counted twice until the next rebuild, at most productivity.reconcile-ms
+ *       later (ProductivityClusterRelay.reconcile)
+ */
+package com.demoproject.demo.pacmedproductivity;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class ProductivityCommitGate {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /* -----------------------------------------------------------------------------
+     * Committing Transactions
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Enrolls the publishing transaction, once per transaction
+     * @param event Change being written in the current transaction
+     * @note A plain @EventListener, so it runs at publish time inside the transaction
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onPacChange(PacChangeEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new Pass());
+    }
+
+    /**
+     * Held from beforeCommit to afterCompletion, which Spring runs after
+     * every afterCommit callback, including @TransactionalEventListener methods
+     */
+    private final class Pass implements TransactionSynchronization {
+        private boolean held;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            lock.readLock().lock();
+            held = true;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ProductivityCommitGate.this);
+            if (held) {
+                held = false;
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Rebuilds
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Runs a rebuild with the gate closed
+     * @param rebuild Snapshot query and in-memory swap
+     * @note Call with the rebuild's connection already taken: commits queued at
+     *       the gate hold pooled connections of their own
+     * @note Must not be called from a PacChangeEvent listener, whose transaction
+     *       already holds the gate
+     */
+    public void whileClosed(Runnable rebuild) {
+        lock.writeLock().lock();
+        try {
+            rebuild.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
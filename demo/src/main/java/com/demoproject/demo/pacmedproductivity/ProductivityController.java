@@ -10,6 +10,8 @@
 package com.demoproject.demo.pacmedproductivity;
 
 import com.demoproject.demo.repository.PacRepository;
+import com.demoproject.demo.services.PacRollupService;
+import com.demoproject.demo.services.UserDirectory;
 import com.demoproject.demo.services.UserService;
 
 import jakarta.validation.constraints.Pattern;
@@ -24,21 +26,19 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.HashMap;
-import java.util.Random;
+import java.util.NoSuchElementException;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
 import org.springframework.data.domain.Page;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -56,26 +56,51 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 @Controller
 public class ProductivityController {
     private static final Logger logger = LoggerFactory.getLogger(ProductivityController.class);
+    private static final int MAX_KEYSET_PAGE_SIZE = 500;
+    private static final int MAX_LEADERBOARD_SIZE = 500;
+    private static final String STORE_PATTERN = "^[a-zA-Z0-9 _-]{1,50}$";
 
     private final UserProductivityService userProductivityService;
     private final PacRepository pacRepository;
-    private final ThreadPoolTaskExecutor taskExecutor;
+    private final PacRollupService rollupService;
+    private final ProductivityTimeseriesService timeseriesService;
+    private final StoreProductivityService storeProductivityService;
+    private final UserDirectory userDirectory;
+    private final AsyncTaskExecutor taskExecutor;
+    private final ProductivityRefresher productivityRefresher;
 
     /* .... Constructor .... */
     /**
      * @param userProductivityService Handles productivity calculations
      * @param userService User management operations
      * @param pacRepository Data access for PAC records
+     * @param rollupService Maintains the daily PAC rollup
+     * @param timeseriesService Bucketed productivity history
+     * @param storeProductivityService Store aggregates and store streams
+     * @param userDirectory Cached username lookups
      * @param taskExecutor Manages async SSE connections
+     * @param productivityRefresher Reseeds totals and caches after a rollup repair
      * @note All parameters are required and non-null
+     * @note taskExecutor is Boot's applicationTaskExecutor: a thread pool, or a
+     *       virtual-thread executor when spring.threads.virtual.enabled=true
      */
     public ProductivityController(UserProductivityService userProductivityService, 
                                 UserService userService, 
                                 PacRepository pacRepository, 
-                                ThreadPoolTaskExecutor taskExecutor) {
+                                PacRollupService rollupService,
+                                ProductivityTimeseriesService timeseriesService,
+                                StoreProductivityService storeProductivityService,
+                                UserDirectory userDirectory,
+                                @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+                                ProductivityRefresher productivityRefresher) {
         this.userProductivityService = userProductivityService;
         this.pacRepository = pacRepository;
+        this.rollupService = rollupService;
+        this.timeseriesService = timeseriesService;
+        this.storeProductivityService = storeProductivityService;
+        this.userDirectory = userDirectory;
         this.taskExecutor = taskExecutor;
+        this.productivityRefresher = productivityRefresher;
     }
 
     /* .... API Endpoints .... */
@@ -83,7 +108,7 @@ public class ProductivityController {
     /**
      * @returns Overall productivity metrics with chart data
      * @throws Exception on data access errors
-     * @note Cached response unless null
+     * @note Figures come from the refresh-ahead cache, so a recompute never blocks this call
      * @security Requires ADMIN or MODERATOR role
      */
     @Operation(summary = "Get overall productivity metrics")
@@ -95,7 +120,6 @@ public class ProductivityController {
     @GetMapping("/api/overall-productivity")
     @ResponseBody
     @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR')")
-    @Cacheable(value = "overallProductivity", key = "'overall'", unless = "#result == null")
     public ResponseEntity<UserProductivityDTO> getOverallProductivity() {
         logger.info("Fetching overall productivity");
         try {
@@ -111,7 +135,8 @@ public class ProductivityController {
                 overallProductivity.getTotalPouchesChecked(),
                 overallProductivity.getAvgTimePerPouch(),
                 overallProductivity.getAvgPouchesPerHour(),
-                chartData
+                chartData,
+                overallProductivity.getPercentiles()
             );
             
             logger.debug("Final productivity DTO: {}", productivityWithChartData);
@@ -153,7 +178,7 @@ public class ProductivityController {
     @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR')")
     public ResponseEntity<Map<String, Object>> getUserProductivity(
             @PathVariable @Pattern(regexp = "^[a-zA-Z0-9_-]{3,50}$") String username) {
-        if (!userProductivityService.userExists(username)) {
+        if (!userDirectory.contains(username)) {
             logger.warn("Attempted to access non-existent user: {}", username);
             return ResponseEntity.notFound().build();
         }
@@ -166,12 +191,18 @@ public class ProductivityController {
     /* .... SSE Streaming Endpoints .... */
 
     /**
+     * @param lastEventId Sent by the browser on automatic reconnect
+     * @param lastEventIdParam Same id for clients that rebuild their EventSource
      * @returns SSE emitter for real-time productivity updates
      * @note Manages emitter lifecycle with cleanup
-     * @performance Uses ThreadPoolTaskExecutor for async handling
+     * @note Missed events are replayed from memory when the id is still buffered
+     * @performance Uses the application task executor for async handling
      */
     @GetMapping(value = "/api/user-productivity-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter streamUserProductivity() {
+    public SseEmitter streamUserProductivity(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        String resumeFrom = lastEventId != null ? lastEventId : lastEventIdParam;
         SseEmitter emitter = new SseEmitter(UserProductivityService.SSE_TIMEOUT);
         taskExecutor.execute(new Runnable() {
             @Override
@@ -180,7 +211,7 @@ public class ProductivityController {
                     emitter.onCompletion(() -> cleanupEmitter(emitter));
                     emitter.onTimeout(() -> cleanupEmitter(emitter));
                     emitter.onError(ex -> cleanupEmitter(emitter));
-                    userProductivityService.subscribeToProductivityUpdates(emitter);
+                    userProductivityService.subscribeToProductivityUpdates(emitter, resumeFrom);
                 } catch (Exception e) {
                     logger.error("Error in SSE stream: ", e);
                     emitter.completeWithError(e);
@@ -196,6 +227,18 @@ public class ProductivityController {
         logger.info("SSE connection cleaned up");
     }
 
+    /**
+     * @returns Versioned per-user snapshot for stream resynchronisation
+     * @note Called by clients whose local version no longer matches a delta's baseVersion
+     * @security Requires ADMIN or MODERATOR role
+     */
+    @GetMapping("/api/user-productivity-snapshot")
+    @ResponseBody
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR')")
+    public ResponseEntity<UserProductivitySnapshotDTO> getUserProductivitySnapshot() {
+        return ResponseEntity.ok(userProductivityService.getUserProductivitySnapshot());
+    }
+
     /**
      * @param page Zero-based page index
      * @param size Results per page
@@ -215,13 +258,174 @@ public class ProductivityController {
     }
 
     /**
+     * @param after Opaque cursor from the previous response's nextCursor
+     * @param size Results per page (1-500)
+     * @param includeTotal Also return the number of leaderboard rows
+     * @returns Keyset page of productivity data ordered by submissions, then username
+     * @throws 400 if the cursor is malformed or size is out of range
+     * @note Deep pages cost the same as the first; no count query unless requested
+     * @security Requires ADMIN or MODERATOR role
+     */
+    @GetMapping("/api/all-user-productivity/keyset")
+    @ResponseBody
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR')")
+    public ResponseEntity<UserProductivitySliceDTO> getUserProductivitySlice(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        if (size < 1 || size > MAX_KEYSET_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(userProductivityService.getUserProductivitySlice(after, size, includeTotal));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected malformed leaderboard cursor: {}", after);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * @param granularity HOUR, DAY or WEEK
+     * @param from First day (inclusive), defaults to 6 days before to
+     * @param to Last day (inclusive), defaults to today
+     * @param username Optional user filter
+     * @param store Optional store filter
+     * @returns Dense buckets for the range, widened to whole buckets
+     * @throws 400 if the range is inverted or too long for the granularity
+     * @throws 404 if the user does not exist
+     * @note Cached per range; only a submission inside the range evicts it
+     * @security Requires ADMIN or MODERATOR role
+     */
+    @GetMapping("/api/productivity/timeseries")
+    @ResponseBody
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR')")
+    public ResponseEntity<ProductivityTimeseriesDTO> getProductivityTimeseries(
+            @RequestParam(defaultValue = "DAY") TimeseriesGranularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String store) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(6);
+        try {
+            return ResponseEntity.ok(timeseriesService.getTimeseries(granularity, start, end, username, store));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected timeseries request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * @param metric SUBMISSIONS, POUCHES_CHECKED or POUCHES_PER_HOUR
+     * @param k Number of leaders (1-500)
+     * @returns Top k users for the metric with rank and score
+     * @throws 400 if k is out of range
+     * @note Served from the in-memory ranked leaderboard, no database query
+     * @security Requires ADMIN or MODERATOR role
+     */
+    @GetMapping("/api/productivity/leaderboard")
+    @ResponseBody
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR')")
+    public ResponseEntity<List<LeaderboardEntryDTO>> getLeaderboard(
+            @RequestParam(defaultValue = "SUBMISSIONS") LeaderboardMetric metric,
+            @RequestParam(defaultValue = "10") int k) {
+        if (k < 1 || k > MAX_LEADERBOARD_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(userProductivityService.getLeaderboard(metric, k));
+    }
+
+    /**
+     * @param username Target user
+     * @param metric SUBMISSIONS, POUCHES_CHECKED or POUCHES_PER_HOUR
+     * @returns The user's rank and score for the metric
+     * @throws 404 if the user has no submissions
+     * @security Requires ADMIN or MODERATOR role
+     */
+    @GetMapping("/api/productivity/leaderboard/{username}")
+    @ResponseBody
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR')")
+    public ResponseEntity<LeaderboardEntryDTO> getLeaderboardRank(
+            @PathVariable @Pattern(regexp = "^[a-zA-Z0-9_-]{3,50}$") String username,
+            @RequestParam(defaultValue = "SUBMISSIONS") LeaderboardMetric metric) {
+        return userProductivityService.getLeaderboardRank(metric, username)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * @returns Totals for every store
+     * @security Requires ADMIN or MODERATOR role
+     */
+    @GetMapping("/api/productivity/stores")
+    @ResponseBody
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR')")
+    public ResponseEntity<List<StoreProductivityDTO>> getAllStoreProductivity() {
+        return ResponseEntity.ok(storeProductivityService.getAllStoreProductivity());
+    }
+
+    /**
+     * @param store Store name (letters, digits, space, underscore or hyphen, 1-50 chars)
+     * @returns Store totals with per-user rows for that store
+     * @security Requires ADMIN or MODERATOR role
+     */
+    @GetMapping("/api/productivity/stores/{store}")
+    @ResponseBody
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR')")
+    public ResponseEntity<StoreProductivityDTO> getStoreProductivity(
+            @PathVariable @Pattern(regexp = STORE_PATTERN) String store) {
+        return ResponseEntity.ok(storeProductivityService.getStoreProductivity(store));
+    }
+
+    /**
+     * @param store Store name
+     * @param lastEventId Sent by the browser on automatic reconnect
+     * @returns SSE emitter carrying only this store's updates, 404 for a store
+     *          with no submissions
+     * @note Each store display receives its own payload instead of filtering the global one
+     */
+    @GetMapping(value = "/api/productivity/stores/{store}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR')")
+    public ResponseEntity<SseEmitter> streamStoreProductivity(
+            @PathVariable @Pattern(regexp = STORE_PATTERN) String store,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            SseEmitter emitter = storeProductivityService.subscribe(store, lastEventId);
+            logger.info("New SSE connection established for store {}", store);
+            return ResponseEntity.ok(emitter);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * @returns Number of rollup rows written
+     * @note Repairs pac_daily_user_rollup from pac, then reseeds totals and streams from it,
+     *       here and on every other node
+     * @security Requires ADMIN role
+     */
+    @PostMapping("/api/productivity/rollup/rebuild")
+    @ResponseBody
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildRollup() {
+        logger.info("Rebuilding PAC daily rollup on request");
+        int rows = rollupService.rebuild();
+        productivityRefresher.refresh();
+        return ResponseEntity.ok(Map.of("rows", rows));
+    }
+
+    /**
+     * @param lastEventId Sent by the browser on automatic reconnect
      * @returns SSE emitter for overall productivity updates
      * @note Managed by UserProductivityService
      */
     @GetMapping(value = "/api/overall-productivity-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter streamOverallProductivity() {
+    public SseEmitter streamOverallProductivity(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
         logger.info("New SSE connection established for overall productivity");
-        return userProductivityService.subscribeToOverallProductivityUpdates();
+        return userProductivityService.subscribeToOverallProductivityUpdates(lastEventId);
     }
 
     /* .... Helper Methods .... */
@@ -229,7 +433,7 @@ public class ProductivityController {
     /**
      * @returns Chart data for last 7 days
      * @throws RuntimeException on data generation failure
-     * @note Generates sample data if no real data available
+     * @note Days without submissions are charted as zero
      */
     private Map<String, Object> generateChartData() {
         try {
@@ -237,34 +441,16 @@ public class ProductivityController {
             List<String> labels = new ArrayList<>();
             List<Integer> pouchesChecked = new ArrayList<>();
 
-            LocalDateTime endDate = LocalDateTime.now();
-            LocalDateTime startDate = endDate.minusDays(6).withHour(0).withMinute(0).withSecond(0);
+            LocalDate endDate = LocalDate.now();
+            LocalDate startDate = endDate.minusDays(6);
 
             logger.debug("Fetching data from {} to {}", startDate, endDate);
-            
-            List<Object[]> results = pacRepository.getPouchesCheckedLast7Days(startDate, endDate);
-
-            if (results.isEmpty()) {
-                logger.info("No data available for the last 7 days. Generating sample data.");
-                Random random = new Random();
-                for (LocalDate date = startDate.toLocalDate(); !date.isAfter(endDate.toLocalDate()); date = date.plusDays(1)) {
-                    labels.add(date.format(DateTimeFormatter.ofPattern("MMM dd")));
-                    pouchesChecked.add(random.nextInt(100) + 1);
-                }
-            } else {
-                Map<LocalDate, Long> resultMap = new HashMap<>();
-                for (Object[] row : results) {
-                    if (row[0] instanceof java.sql.Date) {
-                        LocalDate date = ((java.sql.Date) row[0]).toLocalDate();
-                        Long count = (Long) row[1];
-                        resultMap.put(date, count);
-                    }
-                }
 
-                for (LocalDate date = startDate.toLocalDate(); !date.isAfter(endDate.toLocalDate()); date = date.plusDays(1)) {
-                    labels.add(date.format(DateTimeFormatter.ofPattern("MMM dd")));
-                    pouchesChecked.add(resultMap.getOrDefault(date, 0L).intValue());
-                }
+            ProductivityTimeseriesDTO series = timeseriesService.getTimeseries(
+                TimeseriesGranularity.DAY, startDate, endDate, null, null);
+            for (ProductivityBucketDTO bucket : series.getBuckets()) {
+                labels.add(bucket.getStart().format(DateTimeFormatter.ofPattern("MMM dd")));
+                pouchesChecked.add((int) bucket.getSubmissions());
             }
 
             chartData.put("labels", labels);
@@ -276,14 +462,4 @@ public class ProductivityController {
             throw new RuntimeException("Failed to generate chart data", e);
         }
     }
-
-    /**
-     * Scheduled cache cleanup every 5 minutes
-     * @note Prevents stale productivity data
-     */
-    @CacheEvict(value = "overallProductivity", allEntries = true)
-    @Scheduled(fixedRate = 300000) // 5 minutes
-    public void clearProductivityCache() {
-        logger.info("Clearing productivity cache");
-    }
 }
@@ -0,0 +1,164 @@
+/* =============================================================================
+ * Productivity Histograms
+ * =============================================================================
+ * PURPOSE: Keeps per-user and overall speed distributions in memory so
+ *          percentiles never rescan the PAC table
+ * DEPENDENCIES:
+ * - PacRepository (one grouped query at startup)
+ * - PacChangeEvent (one record/remove per committed submit/delete)
+ * - SubmissionHistograms (HdrHistogram storage)
+ *
+ * @note Percentiles are empty until seeded; callers need no database fallback
+ * @note Rebuilds run behind ProductivityCommitGate, like ProductivityAccumulator's
+ */
+package com.demoproject.demo.pacmedproductivity;
+
+import com.demoproject.demo.repository.PacRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class ProductivityHistograms {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductivityHistograms.class);
+
+    private final PacRepository pacRepository;
+    private final ProductivityCommitGate commitGate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final ConcurrentMap<String, SubmissionHistograms> userHistograms = new ConcurrentHashMap<>();
+    private volatile SubmissionHistograms overall = new SubmissionHistograms();
+
+    /**
+     * @param pacRepository Source of the startup distribution
+     * @param commitGate Holds back PAC commits while a rebuild takes its snapshot
+     * @param transactionManager Transaction manager for the seed query
+     */
+    public ProductivityHistograms(PacRepository pacRepository, ProductivityCommitGate commitGate,
+                                  PlatformTransactionManager transactionManager) {
+        this.pacRepository = pacRepository;
+        this.commitGate = commitGate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // Own connection and snapshot, even when called from another transaction's after-commit
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Seeding
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Seeds the histograms once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        rebuild();
+    }
+
+    /**
+     * Replaces all histograms with a fresh distribution from the database
+     * @note Rows are pre-grouped by (user, seconds, pouches), so the scan
+     *       returns far fewer rows than there are submissions
+     */
+    public void rebuild() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> commitGate.whileClosed(this::reload));
+        } catch (Exception e) {
+            logger.error("Failed to seed productivity histograms, percentiles will be empty", e);
+        }
+    }
+
+    private void reload() {
+        rebuildLock.writeLock().lock();
+        try {
+            List<Object[]> rows = pacRepository.getSubmissionDistribution();
+            Map<String, SubmissionHistograms> fresh = new HashMap<>();
+            SubmissionHistograms freshOverall = new SubmissionHistograms();
+            for (Object[] row : rows) {
+                long seconds = ((Number) row[1]).longValue();
+                long pouches = ((Number) row[2]).longValue();
+                long count = ((Number) row[3]).longValue();
+                fresh.computeIfAbsent((String) row[0], key -> new SubmissionHistograms()).record(pouches, seconds, count);
+                freshOverall.record(pouches, seconds, count);
+            }
+            userHistograms.clear();
+            userHistograms.putAll(fresh);
+            overall = freshOverall;
+            logger.info("Productivity histograms seeded for {} users from {} distinct rows", fresh.size(), rows.size());
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Incremental Updates
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Records or removes a committed PAC change
+     * @param event Change published by PacService
+     * @note Ordered after ProductivityAccumulator and before UserProductivityService
+     */
+    @TransactionalEventListener
+    @Order(5)
+    public void onPacChange(PacChangeEvent event) {
+        apply(event);
+    }
+
+    /**
+     * @param event Local or relayed PAC change
+     */
+    public void apply(PacChangeEvent event) {
+        rebuildLock.readLock().lock();
+        try {
+            SubmissionHistograms user = userHistograms.computeIfAbsent(event.getUsername(), key -> new SubmissionHistograms());
+            if (event.getChangeType() == PacChangeEvent.ChangeType.SUBMITTED) {
+                user.record(event.getPouchesChecked(), event.getDurationSeconds(), 1L);
+                overall.record(event.getPouchesChecked(), event.getDurationSeconds(), 1L);
+            } else {
+                user.remove(event.getPouchesChecked(), event.getDurationSeconds());
+                overall.remove(event.getPouchesChecked(), event.getDurationSeconds());
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Reads
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * @param username Target user
+     * @returns Percentiles of that user's submissions, empty when unknown
+     */
+    public ProductivityPercentiles getUserPercentiles(String username) {
+        SubmissionHistograms histograms = userHistograms.get(username);
+        return histograms != null ? histograms.percentiles() : ProductivityPercentiles.EMPTY;
+    }
+
+    /**
+     * @returns Percentiles across every submission
+     */
+    public ProductivityPercentiles getOverallPercentiles() {
+        return overall.percentiles();
+    }
+}
@@ -0,0 +1,30 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import lombok.Value;
+
+/* ==========================================================================
+ * Productivity Percentiles Value Object
+ *
+ * PURPOSE: Distribution of per-submission speed for one user or overall
+ * USAGE: Attached to UserProductivityDTO.percentiles by UserProductivityService
+ *
+ * @note Complements the means on UserProductivityDTO, which hide slow tails
+ * ========================================================================== */
+@Value
+public class ProductivityPercentiles {
+
+    public static final ProductivityPercentiles EMPTY =
+        new ProductivityPercentiles(PercentileSummary.EMPTY, PercentileSummary.EMPTY);
+
+    /**
+     * Seconds per pouch of individual submissions
+     * @note Submissions with no pouches are not recorded
+     */
+    PercentileSummary timePerPouch;
+
+    /**
+     * Pouches per hour of individual submissions
+     * @note Submissions with no recorded duration are not recorded
+     */
+    PercentileSummary pouchesPerHour;
+}
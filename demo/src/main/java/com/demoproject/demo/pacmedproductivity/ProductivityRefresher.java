@@ -0,0 +1,90 @@
+/* =============================================================================
+ * Productivity Refresher
+ * =============================================================================
+ * PURPOSE: Reseeds everything derived from PAC data after a write that bypasses
+ *          PacChangeEvent (CSV imports, rollup repairs, user deletion)
+ * DEPENDENCIES:
+ * - ProductivityAccumulator and ProductivityHistograms (database rebuilds)
+ * - ProductivityTimeseriesService and StoreProductivityService (cache eviction)
+ * - UserProductivityService (cache refresh and SSE signalling)
+ * - ProductivityClusterRelay (optional, tells other nodes to do the same)
+ *
+ * @note Rebuilds take their own transactions; call after the write has
+ *       committed, or use refreshAfterCommit from inside it
+ */
+package com.demoproject.demo.pacmedproductivity;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+public class ProductivityRefresher {
+
+    private final ProductivityAccumulator accumulator;
+    private final ProductivityHistograms histograms;
+    private final ProductivityTimeseriesService timeseriesService;
+    private final StoreProductivityService storeProductivityService;
+    private final UserProductivityService userProductivityService;
+    private final ObjectProvider<ProductivityClusterRelay> clusterRelay;
+
+    /**
+     * @param accumulator In-memory totals and leaderboards
+     * @param histograms Percentile distributions
+     * @param timeseriesService Timeseries bucket cache
+     * @param storeProductivityService Store totals cache and streams
+     * @param userProductivityService User productivity cache and streams
+     * @param clusterRelay Present only when the notification bus is enabled
+     */
+    public ProductivityRefresher(ProductivityAccumulator accumulator,
+                                 ProductivityHistograms histograms,
+                                 ProductivityTimeseriesService timeseriesService,
+                                 StoreProductivityService storeProductivityService,
+                                 UserProductivityService userProductivityService,
+                                 ObjectProvider<ProductivityClusterRelay> clusterRelay) {
+        this.accumulator = accumulator;
+        this.histograms = histograms;
+        this.timeseriesService = timeseriesService;
+        this.storeProductivityService = storeProductivityService;
+        this.userProductivityService = userProductivityService;
+        this.clusterRelay = clusterRelay;
+    }
+
+    /**
+     * Reseeds this node, then tells the other nodes to do the same
+     */
+    public void refresh() {
+        refreshLocal();
+        clusterRelay.ifAvailable(ProductivityClusterRelay::publishRebuild);
+    }
+
+    /**
+     * Reseeds this node only
+     * @note Used by the relay when another node asks for a rebuild
+     */
+    public void refreshLocal() {
+        accumulator.rebuild();
+        histograms.rebuild();
+        timeseriesService.invalidateAll();
+        storeProductivityService.invalidateAll();
+        userProductivityService.updateUserProductivity();
+    }
+
+    /**
+     * Runs refresh once the current transaction commits, or right away without one
+     * @note Nothing is refreshed if the transaction rolls back
+     */
+    public void refreshAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh();
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/* ==========================================================================
+ * Productivity Timeseries Data Transfer Object
+ *
+ * PURPOSE: Dense, gap-filled productivity buckets for a date range
+ * USAGE: Response of /api/productivity/timeseries and source of the
+ *        overall productivity chart
+ *
+ * @note from/to are the requested range widened to whole buckets
+ * ========================================================================== */
+@Value
+public class ProductivityTimeseriesDTO {
+
+    TimeseriesGranularity granularity;
+
+    /**
+     * Start of the first bucket
+     */
+    LocalDateTime from;
+
+    /**
+     * Exclusive end of the last bucket
+     */
+    LocalDateTime to;
+
+    /**
+     * User filter, or null for everyone
+     */
+    String username;
+
+    /**
+     * Store filter, or null for every store
+     */
+    String store;
+
+    /**
+     * One entry per bucket in chronological order
+     */
+    List<ProductivityBucketDTO> buckets;
+}
@@ -0,0 +1,202 @@
+/* =============================================================================
+ * Productivity Timeseries Service
+ * =============================================================================
+ * PURPOSE: Serves dense hourly, daily and weekly productivity buckets
+ * DEPENDENCIES:
+ * - PacRepository (one generate_series aggregate per request)
+ * - UserDirectory (username to user id)
+ * - "productivityTimeseries" Caffeine cache
+ * - Micrometer (read and cache load timers)
+ *
+ * CACHING:
+ * - Entries are keyed by TimeseriesKey (granularity, aligned range, filters)
+ * - A committed PAC change evicts only the entries whose range and filters
+ *   cover it, so historical ranges stay cached while today's refresh
+ *
+ * @note DAY and WEEK series read pac_daily_user_rollup; HOUR reads pac
+ */
+package com.demoproject.demo.pacmedproductivity;
+
+import com.demoproject.demo.repository.PacRepository;
+import com.demoproject.demo.services.UserDirectory;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class ProductivityTimeseriesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductivityTimeseriesService.class);
+    public static final String CACHE_NAME = "productivityTimeseries";
+
+    private final PacRepository pacRepository;
+    private final UserDirectory userDirectory;
+    private final CacheManager cacheManager;
+    private final Timer loadTimer;
+
+    // Bumped on every eviction so a load that raced a commit is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param pacRepository Timeseries aggregate queries
+     * @param userDirectory Resolves the optional user filter
+     * @param cacheManager Holds the productivityTimeseries cache
+     * @param meterRegistry Metrics registry for cache load times
+     */
+    public ProductivityTimeseriesService(PacRepository pacRepository,
+                                         UserDirectory userDirectory,
+                                         CacheManager cacheManager,
+                                         MeterRegistry meterRegistry) {
+        this.pacRepository = pacRepository;
+        this.userDirectory = userDirectory;
+        this.cacheManager = cacheManager;
+        this.loadTimer = Timer.builder("productivity.cache.load")
+            .tag("cache", CACHE_NAME)
+            .register(meterRegistry);
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Queries
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Retrieves a gap-filled series for a date range
+     * @param granularity Bucket size
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @param username User filter, null or blank for all users
+     * @param store Store filter, null or blank for all stores
+     * @returns One bucket per hour/day/week, empty buckets included
+     * @throws IllegalArgumentException if the range is inverted or spans too many buckets
+     * @throws NoSuchElementException if the user does not exist
+     */
+    @Transactional(readOnly = true)
+    @Timed(value = "productivity.read", extraTags = {"endpoint", "timeseries"})
+    public ProductivityTimeseriesDTO getTimeseries(TimeseriesGranularity granularity,
+                                                   LocalDate from,
+                                                   LocalDate to,
+                                                   String username,
+                                                   String store) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        LocalDateTime start = granularity.alignStart(from);
+        LocalDateTime end = granularity.alignEnd(to);
+        if (granularity.bucketCount(start, end) > granularity.getMaxBuckets()) {
+            throw new IllegalArgumentException("Range exceeds " + granularity.getMaxBuckets()
+                + " " + granularity.getTruncUnit() + " buckets");
+        }
+        TimeseriesKey key = new TimeseriesKey(granularity, start, end, normalize(username), normalize(store));
+
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            ProductivityTimeseriesDTO cached = cache.get(key, ProductivityTimeseriesDTO.class);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long generation = invalidations.get();
+        ProductivityTimeseriesDTO series = loadTimer.record(() -> load(key));
+        if (cache != null && invalidations.get() == generation) {
+            cache.put(key, series);
+        }
+        return series;
+    }
+
+    private ProductivityTimeseriesDTO load(TimeseriesKey key) {
+        long userId = 0L;
+        if (!key.getUsername().isEmpty()) {
+            userId = userDirectory.find(key.getUsername())
+                .map(UserDirectory.Entry::id)
+                .orElseThrow(() -> new NoSuchElementException("User not found: " + key.getUsername()));
+        }
+        TimeseriesGranularity granularity = key.getGranularity();
+        List<Object[]> rows = granularity == TimeseriesGranularity.HOUR
+            ? pacRepository.getHourlyProductivitySeries(key.getStart(), key.getEnd(), userId, key.getStore())
+            : pacRepository.getRollupProductivitySeries(
+                key.getStart().toLocalDate(), key.getEnd().toLocalDate(),
+                granularity.getTruncUnit(), granularity.getStep(), userId, key.getStore());
+        logger.debug("Loaded {} {} buckets from {} to {}", rows.size(), granularity, key.getStart(), key.getEnd());
+
+        List<ProductivityBucketDTO> buckets = rows.stream()
+            .map(row -> ProductivityBucketDTO.of(toLocalDateTime(row[0]), new ProductivityTotals(
+                ((Number) row[1]).longValue(),
+                ((Number) row[2]).longValue(),
+                ((Number) row[3]).longValue())))
+            .toList();
+        return new ProductivityTimeseriesDTO(granularity, key.getStart(), key.getEnd(),
+            key.getUsername().isEmpty() ? null : key.getUsername(),
+            key.getStore().isEmpty() ? null : key.getStore(),
+            buckets);
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Cache Eviction
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Evicts the cached series a committed PAC change falls into
+     * @param event Committed PAC change
+     * @note Also called by ProductivityClusterRelay for changes from other nodes
+     */
+    @TransactionalEventListener
+    @Order(15)
+    public void onPacChange(PacChangeEvent event) {
+        invalidations.incrementAndGet();
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache instanceof CaffeineCache caffeineCache) {
+            caffeineCache.getNativeCache().asMap().keySet()
+                .removeIf(key -> key instanceof TimeseriesKey series && series.covers(event));
+        } else if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Evicts every cached series
+     * @note Used after bulk writes that bypass PacChangeEvent
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Helpers
+     * -------------------------------------------------------------------------- */
+
+    private static String normalize(String filter) {
+        return filter != null ? filter.trim() : "";
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        if (value instanceof OffsetDateTime offsetDateTime) {
+            return offsetDateTime.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
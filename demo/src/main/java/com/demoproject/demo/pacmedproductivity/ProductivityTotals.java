@@ -0,0 +1,95 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import lombok.Value;
+
+/* ==========================================================================
+ * Productivity Totals Value Object
+ *
+ * PURPOSE: Running sums behind every productivity figure for one user
+ * USAGE: Held by ProductivityAccumulator and combined via plus()
+ *
+ * @note Immutable so snapshots can be shared across threads without copying
+ * @note Averages are derived on demand and never stored
+ * ========================================================================== */
+@Value
+public class ProductivityTotals {
+
+    public static final ProductivityTotals EMPTY = new ProductivityTotals(0L, 0L, 0L);
+
+    /* ------------------------------------------------------------------------
+     * Running Sums
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Number of PAC submissions
+     * @note Negative only inside a delta describing a deletion
+     */
+    long submissions;
+
+    /**
+     * Sum of pouches checked across all submissions
+     */
+    long pouchesChecked;
+
+    /**
+     * Sum of (endTime - startTime) across all submissions
+     * @note Measured in seconds
+     */
+    long totalSeconds;
+
+    /* ------------------------------------------------------------------------
+     * Arithmetic
+     * -------------------------------------------------------------------- */
+
+    /**
+     * @param other Totals or delta to add
+     * @returns New totals holding the element-wise sum
+     */
+    public ProductivityTotals plus(ProductivityTotals other) {
+        return new ProductivityTotals(
+            submissions + other.submissions,
+            pouchesChecked + other.pouchesChecked,
+            totalSeconds + other.totalSeconds
+        );
+    }
+
+    /**
+     * @returns True when no submissions remain behind these totals
+     */
+    public boolean isEmpty() {
+        return submissions <= 0;
+    }
+
+    /* ------------------------------------------------------------------------
+     * Derived Metrics
+     * -------------------------------------------------------------------- */
+
+    /**
+     * @returns Seconds spent per pouch, 0 when nothing was checked
+     */
+    public double getAvgTimePerPouch() {
+        return pouchesChecked > 0 ? (double) totalSeconds / pouchesChecked : 0;
+    }
+
+    /**
+     * @returns Pouches checked per hour, 0 when no time was recorded
+     */
+    public double getAvgPouchesPerHour() {
+        return totalSeconds > 0 ? (pouchesChecked * 3600.0) / totalSeconds : 0;
+    }
+
+    /**
+     * @param username Label for the resulting DTO
+     * @returns Productivity DTO without chart data
+     */
+    public UserProductivityDTO toDTO(String username) {
+        return new UserProductivityDTO(
+            username,
+            submissions,
+            pouchesChecked,
+            getAvgTimePerPouch(),
+            getAvgPouchesPerHour(),
+            null
+        );
+    }
+}
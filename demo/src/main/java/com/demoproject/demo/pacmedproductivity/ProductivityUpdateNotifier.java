@@ -0,0 +1,180 @@
+/* =============================================================================
+ * Productivity Update Notifier
+ * =============================================================================
+ * PURPOSE: Coalesces bursts of productivity change signals into at most one
+ *          recompute and broadcast per window for each stream
+ * DEPENDENCIES:
+ * - Micrometer (signal, flush, coalescing and burst metrics)
+ *
+ * FLOW:
+ * 1. Streams register a flush action once at startup
+ * 2. signal(stream) marks the stream dirty and arms a timer if none is pending
+ * 3. When the window closes the flush action runs once on the notifier thread
+ *
+ * @note Callers never wait for a recompute, so submission latency does not
+ *       depend on how many dashboards are connected
+ */
+package com.demoproject.demo.pacmedproductivity;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class ProductivityUpdateNotifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductivityUpdateNotifier.class);
+
+    private final MeterRegistry meterRegistry;
+    private final long windowMillis;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<String, StreamState> streams = new ConcurrentHashMap<>();
+
+    /**
+     * @param meterRegistry Metrics registry for coalescing stats
+     * @param windowMillis Coalescing window in milliseconds
+     */
+    public ProductivityUpdateNotifier(MeterRegistry meterRegistry,
+                                      @Value("${productivity.notify.window-ms:250}") long windowMillis) {
+        this.meterRegistry = meterRegistry;
+        this.windowMillis = windowMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("productivity-notifier-"));
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Registration
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Registers the recompute-and-broadcast action for a stream
+     * @param stream Stream name
+     * @param flushAction Runs at most once per window
+     */
+    public void register(String stream, Runnable flushAction) {
+        streams.put(stream, new StreamState(stream, flushAction));
+        logger.debug("Registered productivity stream {} with {}ms window", stream, windowMillis);
+    }
+
+    /**
+     * Registers a stream discovered at runtime, keeping any existing registration
+     * @param stream Stream name
+     * @param flushAction Runs at most once per window
+     * @note Safe to call on every signal; pending state is never reset
+     */
+    public void registerIfAbsent(String stream, Runnable flushAction) {
+        streams.computeIfAbsent(stream, key -> new StreamState(key, flushAction));
+    }
+
+    /**
+     * Drops a stream registered at runtime together with its meters
+     * @param stream Stream name
+     * @note A flush already scheduled still runs once; later signals are ignored
+     */
+    public void unregister(String stream) {
+        StreamState state = streams.remove(stream);
+        if (state != null) {
+            state.removeMeters();
+            logger.debug("Unregistered productivity stream {}", stream);
+        }
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Signalling
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Marks a stream as changed
+     * @param stream Stream name
+     * @note O(1) and non-blocking; unknown streams are ignored
+     */
+    public void signal(String stream) {
+        StreamState state = streams.get(stream);
+        if (state == null) {
+            return;
+        }
+        state.signals.increment();
+        state.signalsInWindow.incrementAndGet();
+        if (!state.pending.compareAndSet(false, true)) {
+            state.coalesced.increment();
+            return;
+        }
+        try {
+            scheduler.schedule(() -> flush(state), windowMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            state.pending.set(false);
+            logger.debug("Notifier is shut down, dropping signal for {}", stream);
+        }
+    }
+
+    /**
+     * Runs the flush action for a stream once its window closes
+     * @note pending is cleared first so signals raised during the flush arm a new window
+     */
+    private void flush(StreamState state) {
+        state.pending.set(false);
+        state.burstSize.record(state.signalsInWindow.getAndSet(0));
+        state.flushes.increment();
+        try {
+            state.flushAction.run();
+        } catch (Exception e) {
+            logger.error("Productivity flush failed for stream {}", state.stream, e);
+        }
+    }
+
+    /**
+     * Stops the notifier thread
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Per-Stream State
+     * -------------------------------------------------------------------------- */
+
+    private final class StreamState {
+        private final String stream;
+        private final Runnable flushAction;
+        private final AtomicBoolean pending = new AtomicBoolean(false);
+        private final AtomicInteger signalsInWindow = new AtomicInteger(0);
+        private final Counter signals;
+        private final Counter coalesced;
+        private final Counter flushes;
+        private final DistributionSummary burstSize;
+
+        private StreamState(String stream, Runnable flushAction) {
+            this.stream = stream;
+            this.flushAction = flushAction;
+            this.signals = meterRegistry.counter("productivity.notify.signals", "stream", stream);
+            this.coalesced = meterRegistry.counter("productivity.notify.coalesced", "stream", stream);
+            this.flushes = meterRegistry.counter("productivity.notify.flushes", "stream", stream);
+            this.burstSize = DistributionSummary.builder("productivity.notify.burst.size")
+                .tag("stream", stream)
+                .register(meterRegistry);
+        }
+
+        private void removeMeters() {
+            meterRegistry.remove(signals);
+            meterRegistry.remove(coalesced);
+            meterRegistry.remove(flushes);
+            meterRegistry.remove(burstSize);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/* ==========================================================================
+ * Ranked Leaderboard
+ *
+ * PURPOSE: Users ordered by one productivity score with O(log n) updates,
+ *          rank lookups and positional reads
+ * USAGE: One instance per LeaderboardMetric, owned by ProductivityAccumulator
+ *
+ * @note Order-statistic treap: every node carries its subtree size, so
+ *       rank(x) and select(i) walk a single root-to-leaf path
+ * @note Order is score DESC, username ASC, matching ProductivityAccumulator.RANKING
+ * @note Not thread-safe; the owner serializes writers against readers
+ * ========================================================================== */
+public final class RankedLeaderboard {
+
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+    private static final class Node {
+        final String username;
+        final double score;
+        final ProductivityTotals totals;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(String username, double score, ProductivityTotals totals, int priority) {
+            this.username = username;
+            this.score = score;
+            this.totals = totals;
+            this.priority = priority;
+        }
+    }
+
+    /* ------------------------------------------------------------------------
+     * Updates
+     * -------------------------------------------------------------------- */
+
+    /**
+     * @param username User to add
+     * @param score Ranking score
+     * @param totals Totals to return alongside the position
+     * @note The caller removes the user's previous entry first
+     */
+    public void insert(String username, double score, ProductivityTotals totals) {
+        Node node = new Node(username, score, totals, random.nextInt());
+        Node[] parts = split(root, score, username);
+        root = merge(merge(parts[0], node), parts[1]);
+    }
+
+    /**
+     * @param username User to remove
+     * @param score Score the user was inserted with
+     * @note No-op when the user is not ranked at that score
+     */
+    public void remove(String username, double score) {
+        Node[] lower = split(root, score, username);
+        // lower[1] starts with the entry itself when present
+        Node[] entry = splitFirst(lower[1]);
+        if (entry[0] != null && (Double.compare(entry[0].score, score) != 0 || !entry[0].username.equals(username))) {
+            root = merge(lower[0], merge(entry[0], entry[1]));
+            return;
+        }
+        root = merge(lower[0], entry[1]);
+    }
+
+    /**
+     * Removes every entry
+     */
+    public void clear() {
+        root = null;
+    }
+
+    /* ------------------------------------------------------------------------
+     * Reads
+     * -------------------------------------------------------------------- */
+
+    /**
+     * @returns Number of ranked users
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * @param score Score of the position
+     * @param username Username of the position
+     * @returns Number of entries ordered strictly before (score, username)
+     */
+    public int countBefore(double score, String username) {
+        return count(score, username, false);
+    }
+
+    /**
+     * @param score Score of the position
+     * @param username Username of the position
+     * @returns Number of entries ordered before or at (score, username)
+     */
+    public int countNotAfter(double score, String username) {
+        return count(score, username, true);
+    }
+
+    private int count(double score, String username, boolean inclusive) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            int order = compare(node.score, node.username, score, username);
+            if (order < 0 || (inclusive && order == 0)) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param from Zero-based position of the first entry
+     * @param limit Maximum entries to return
+     * @returns Up to limit entries starting at position from, in rank order
+     * @note O(log n + limit)
+     */
+    public List<UserProductivityDTO> range(int from, int limit) {
+        List<UserProductivityDTO> out = new ArrayList<>(Math.max(0, Math.min(limit, size() - from)));
+        collect(root, from, limit, out);
+        return out;
+    }
+
+    private void collect(Node node, int skip, int limit, List<UserProductivityDTO> out) {
+        if (node == null || out.size() >= limit) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (skip < leftSize) {
+            collect(node.left, skip, limit, out);
+        }
+        if (out.size() < limit && skip <= leftSize) {
+            out.add(node.totals.toDTO(node.username));
+        }
+        if (out.size() < limit) {
+            collect(node.right, Math.max(0, skip - leftSize - 1), limit, out);
+        }
+    }
+
+    /* ------------------------------------------------------------------------
+     * Treap Internals
+     * -------------------------------------------------------------------- */
+
+    private static int compare(double scoreA, String userA, double scoreB, String userB) {
+        int byScore = Double.compare(scoreB, scoreA);
+        return byScore != 0 ? byScore : userA.compareTo(userB);
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static Node update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    /**
+     * @returns [entries before (score, username), entries at or after it]
+     */
+    private static Node[] split(Node node, double score, String username) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        if (compare(node.score, node.username, score, username) < 0) {
+            Node[] parts = split(node.right, score, username);
+            node.right = parts[0];
+            return new Node[] {update(node), parts[1]};
+        }
+        Node[] parts = split(node.left, score, username);
+        node.left = parts[1];
+        return new Node[] {parts[0], update(node)};
+    }
+
+    /**
+     * @returns [first entry in order, the rest]
+     */
+    private static Node[] splitFirst(Node node) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        if (node.left == null) {
+            Node rest = node.right;
+            node.right = null;
+            return new Node[] {update(node), rest};
+        }
+        Node[] parts = splitFirst(node.left);
+        node.left = parts[1];
+        return new Node[] {parts[0], update(node)};
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+}
@@ -0,0 +1,251 @@
+/* =============================================================================
+ * Refresh-Ahead Cache
+ * =============================================================================
+ * PURPOSE: Keyed cache that keeps serving its last value while one background
+ *          load recomputes it, so readers never wait on a recompute once a
+ *          value exists
+ * DEPENDENCIES:
+ * - Caffeine (bounded slot store)
+ * - Micrometer (staleness, load and wait metrics; cache.* stats of the slot store)
+ *
+ * FLOW:
+ * 1. A cold miss starts one load; concurrent misses for the key wait on it
+ * 2. markStale(key) flags the value and starts one background reload
+ * 3. Reads of a stale or expired value return it at once and start a reload
+ *    only if none is running
+ * 4. A change that lands while a reload runs triggers one more reload, so the
+ *    result of a load that raced a change is never reported as fresh
+ *
+ * @note Not a Spring cache: @Cacheable has no refresh-ahead and evicts on
+ *       invalidation, which is what made readers stampede the loader
+ */
+package com.demoproject.demo.pacmedproductivity;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+public class RefreshAheadCache<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshAheadCache.class);
+
+    private final String name;
+    private final Function<K, V> loader;
+    private final Executor executor;
+    private final long refreshAfterNanos;
+    private final Cache<K, Slot<V>> slots;
+    private final Timer staleness;
+    private final Timer loadTimer;
+    private final Counter reloads;
+    private final Counter loadFailures;
+    private final Counter coldWaits;
+
+    /**
+     * @param name Cache name, used as the "cache" metric tag
+     * @param loader Computes a value; must not return null
+     * @param executor Runs every load, including cold ones
+     * @param refreshAfter Age after which a read starts a background reload
+     * @param maximumSize Most keys kept at once
+     * @param meterRegistry Metrics registry
+     */
+    public RefreshAheadCache(String name, Function<K, V> loader, Executor executor,
+                             Duration refreshAfter, long maximumSize, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.loader = loader;
+        this.executor = executor;
+        this.refreshAfterNanos = refreshAfter.toNanos();
+        this.slots = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, slots, name, Tags.of("cache.manager", "refreshAhead"));
+        this.staleness = Timer.builder("productivity.cache.staleness")
+            .description("Age of the change a served value does not yet reflect")
+            .tag("cache", name)
+            .register(meterRegistry);
+        this.loadTimer = Timer.builder("productivity.cache.load")
+            .tag("cache", name)
+            .register(meterRegistry);
+        this.reloads = meterRegistry.counter("productivity.cache.reloads", "cache", name);
+        this.loadFailures = meterRegistry.counter("productivity.cache.load.failures", "cache", name);
+        this.coldWaits = meterRegistry.counter("productivity.cache.cold.waits", "cache", name);
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Reads
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Returns the current value for a key
+     * @param key Cache key
+     * @returns Last loaded value, possibly stale; only a key that was never
+     *          loaded waits, and then on the single shared load
+     * @throws CompletionException If the cold load failed
+     */
+    public V get(K key) {
+        Slot<V> slot = slots.get(key, k -> new Slot<>());
+        CompletableFuture<V> coldLoad;
+        synchronized (slot) {
+            if (slot.value != null) {
+                long now = System.nanoTime();
+                if (slot.staleSince != 0L) {
+                    staleness.record(now - slot.staleSince, TimeUnit.NANOSECONDS);
+                    reloadIfIdle(key, slot);
+                } else if (now - slot.loadedAt >= refreshAfterNanos) {
+                    reloadIfIdle(key, slot);
+                }
+                return slot.value;
+            }
+            coldLoad = slot.inFlight != null ? slot.inFlight : startLoad(key, slot);
+        }
+        coldWaits.increment();
+        return coldLoad.join();
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Invalidation
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Flags one key as stale and reloads it in the background
+     * @param key Cache key
+     * @note O(1) and non-blocking; unknown keys are ignored
+     */
+    public void markStale(K key) {
+        Slot<V> slot = slots.getIfPresent(key);
+        if (slot == null) {
+            return;
+        }
+        synchronized (slot) {
+            markStale(slot);
+            reloadIfIdle(key, slot);
+        }
+    }
+
+    /**
+     * Flags every key as stale; each reloads on its next read
+     * @note Values keep being served, so a bulk change never empties the cache
+     */
+    public void markAllStale() {
+        slots.asMap().values().forEach(slot -> {
+            synchronized (slot) {
+                markStale(slot);
+            }
+        });
+    }
+
+    /**
+     * Drops every key, including values still being served
+     */
+    public void clear() {
+        slots.invalidateAll();
+    }
+
+    /**
+     * @returns Number of keys held
+     */
+    public long size() {
+        return slots.estimatedSize();
+    }
+
+    /**
+     * @returns Number of keys currently flagged stale
+     */
+    public long staleCount() {
+        return slots.asMap().values().stream().filter(slot -> slot.staleSince != 0L).count();
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Loading
+     * -------------------------------------------------------------------------- */
+
+    private void markStale(Slot<V> slot) {
+        slot.generation++;
+        if (slot.staleSince == 0L) {
+            slot.staleSince = System.nanoTime();
+        }
+    }
+
+    /**
+     * Starts a reload unless one is already running
+     * @note Caller holds the slot lock
+     */
+    private void reloadIfIdle(K key, Slot<V> slot) {
+        if (slot.inFlight == null) {
+            reloads.increment();
+            startLoad(key, slot);
+        }
+    }
+
+    /**
+     * Starts a load on the executor
+     * @note Caller holds the slot lock
+     */
+    private CompletableFuture<V> startLoad(K key, Slot<V> slot) {
+        long generation = slot.generation;
+        CompletableFuture<V> load;
+        try {
+            load = CompletableFuture.supplyAsync(() -> timedLoad(key), executor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Executor rejected {} load for {}, serving last value", name, key);
+            return CompletableFuture.failedFuture(e);
+        }
+        slot.inFlight = load;
+        load.whenComplete((value, error) -> finishLoad(key, slot, generation, value, error));
+        return load;
+    }
+
+    private V timedLoad(K key) {
+        V value = loadTimer.record(() -> loader.apply(key));
+        if (value == null) {
+            throw new IllegalStateException("Loader returned null for " + name + " key " + key);
+        }
+        return value;
+    }
+
+    private void finishLoad(K key, Slot<V> slot, long generation, V value, Throwable error) {
+        synchronized (slot) {
+            slot.inFlight = null;
+            if (error != null) {
+                loadFailures.increment();
+                logger.error("Failed to load {} for {}, serving last value", name, key, error);
+                if (slot.value == null) {
+                    // Let the next reader retry the cold load instead of caching the failure
+                    slots.asMap().remove(key, slot);
+                }
+                return;
+            }
+            slot.value = value;
+            slot.loadedAt = System.nanoTime();
+            if (slot.generation == generation) {
+                slot.staleSince = 0L;
+            } else {
+                reloadIfIdle(key, slot);
+            }
+        }
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Per-Key State
+     * -------------------------------------------------------------------------- */
+
+    private static final class Slot<V> {
+        private volatile V value;
+        private long loadedAt;
+        private volatile long staleSince;
+        private long generation;
+        private CompletableFuture<V> inFlight;
+    }
+}
@@ -0,0 +1,493 @@
+/* =============================================================================
+ * SSE Broadcaster
+ * =============================================================================
+ * PURPOSE: Fans productivity events out to SSE subscribers without blocking
+ *          the thread that produced them
+ * DEPENDENCIES:
+ * - Jackson ObjectMapper (each event is serialized once per broadcast)
+ * - Micrometer (send latency, connects, session length, queue depth, drops, coalescing)
+ *
+ * DESIGN:
+ * - Every subscriber owns a bounded outbound queue
+ * - A dedicated sender pool drains queues; one drain task per subscriber at a time.
+ *   With spring.threads.virtual.enabled each drain gets its own virtual thread,
+ *   so a slow client no longer ties up one of a few platform threads
+ * - A full queue is coalesced down to the newest event; a subscriber that keeps
+ *   overflowing is disconnected
+ * - Event ids are "<epoch>-<seq>" with a per-stream monotonic sequence; the last
+ *   replay-buffer-size events of each stream are kept so a reconnect carrying
+ *   Last-Event-ID is served from memory instead of a fresh snapshot
+ * - Heartbeat events keep idle connections alive and surface dead ones
+ *
+ * @note Full-state streams lose nothing when older queued events are dropped;
+ *       delta streams carry versions so clients can detect the gap and resync
+ */
+package com.demoproject.demo.pacmedproductivity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+@Component
+public class SseBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseBroadcaster.class);
+    private static final long RECONNECT_TIME = 5000L;
+    private static final OutboundEvent HEARTBEAT = new OutboundEvent(null, "comment", "heartbeat");
+
+    private final ObjectMapper objectMapper;
+    private final ExecutorService senderPool;
+    private final ScheduledExecutorService heartbeatScheduler;
+    private final int queueCapacity;
+    private final int maxOverflows;
+    private final int replayBufferSize;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ConcurrentMap<String, Stream> streams = new ConcurrentHashMap<>();
+    private final ConcurrentMap<SseEmitter, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    private final Timer sendTimer;
+    private final Counter coalescedCounter;
+    private final Counter droppedCounter;
+    private final Counter replayedCounter;
+    private final Counter replayMissCounter;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param objectMapper JSON serialization
+     * @param meterRegistry Metrics registry for broadcast stats
+     * @param queueCapacity Pending events allowed per subscriber
+     * @param senderThreads Size of the sender pool (platform thread mode only)
+     * @param maxOverflows Consecutive overflows before a subscriber is dropped
+     * @param replayBufferSize Recent events kept per stream for Last-Event-ID replay
+     * @param heartbeatMillis Interval between heartbeat events
+     * @param virtualThreads Drain on virtual threads instead of the fixed pool
+     */
+    public SseBroadcaster(ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${productivity.sse.queue-capacity:64}") int queueCapacity,
+                          @Value("${productivity.sse.sender-threads:4}") int senderThreads,
+                          @Value("${productivity.sse.max-overflows:3}") int maxOverflows,
+                          @Value("${productivity.sse.replay-buffer-size:64}") int replayBufferSize,
+                          @Value("${productivity.sse.heartbeat-ms:15000}") long heartbeatMillis,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.objectMapper = objectMapper;
+        this.queueCapacity = queueCapacity;
+        this.maxOverflows = maxOverflows;
+        this.replayBufferSize = replayBufferSize;
+        this.senderPool = virtualThreads
+            ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-sender-", 0).factory())
+            : Executors.newFixedThreadPool(senderThreads, new CustomizableThreadFactory("sse-sender-"));
+        this.heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sse-heartbeat-"));
+        this.heartbeatScheduler.scheduleAtFixedRate(this::sendHeartbeats, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+
+        this.sendTimer = meterRegistry.timer("productivity.sse.send.latency");
+        this.coalescedCounter = meterRegistry.counter("productivity.sse.coalesced");
+        this.droppedCounter = meterRegistry.counter("productivity.sse.dropped");
+        this.replayedCounter = meterRegistry.counter("productivity.sse.replay", "result", "hit");
+        this.replayMissCounter = meterRegistry.counter("productivity.sse.replay", "result", "miss");
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("productivity.sse.queue.depth", subscribers,
+                subs -> subs.values().stream().mapToInt(sub -> sub.queue.size()).sum())
+            .register(meterRegistry);
+        Gauge.builder("productivity.sse.subscribers", subscribers, ConcurrentMap::size)
+            .register(meterRegistry);
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Subscription Management
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Registers an emitter on a stream, resuming from Last-Event-ID when possible
+     * @param stream Stream name
+     * @param emitter Client emitter
+     * @param lastEventId Last-Event-ID sent by the client, or null on first connect
+     * @param snapshotEvent SSE event name for the snapshot, null for "message"
+     * @param snapshot Builds the initial payload; only called when replay is not possible
+     * @throws JsonProcessingException if the snapshot cannot be serialized
+     * @note Runs under the stream lock, so no broadcast can fall between the
+     *       replay/snapshot and the subscriber joining the stream
+     */
+    public void subscribe(String stream, SseEmitter emitter, String lastEventId,
+                          String snapshotEvent, Supplier<?> snapshot) throws JsonProcessingException {
+        subscribe(stream, emitter, lastEventId, snapshotEvent, snapshot, null);
+    }
+
+    /**
+     * Registers an emitter on a stream and runs a callback once it leaves
+     * @param onLeave Runs once when the emitter is unsubscribed for any reason, or null
+     * @throws JsonProcessingException if the snapshot cannot be serialized
+     * @note See subscribe(String, SseEmitter, String, String, Supplier) for the other parameters
+     */
+    public void subscribe(String stream, SseEmitter emitter, String lastEventId,
+                          String snapshotEvent, Supplier<?> snapshot, Runnable onLeave) throws JsonProcessingException {
+        Subscriber subscriber = new Subscriber(stream, emitter, queueCapacity, onLeave);
+        emitter.onCompletion(() -> unsubscribe(emitter));
+        emitter.onTimeout(() -> {
+            unsubscribe(emitter);
+            emitter.complete();
+        });
+        emitter.onError(e -> unsubscribe(emitter));
+
+        Stream target = stream(stream);
+        target.lock.lock();
+        try {
+            subscribers.put(emitter, subscriber);
+            target.members.add(subscriber);
+            if (!replay(target, subscriber, lastEventId)) {
+                Object payload = snapshot.get();
+                if (payload != null) {
+                    String id = target.lastSequence > 0 ? eventId(target.lastSequence) : null;
+                    enqueue(subscriber, new OutboundEvent(id, snapshotEvent, serialize(payload)));
+                }
+            }
+        } finally {
+            target.lock.unlock();
+        }
+        meterRegistry.counter("productivity.sse.connections", "stream", streamTag(stream)).increment();
+        logger.debug("SSE subscriber added to stream {}", stream);
+    }
+
+    /**
+     * Queues every buffered event newer than lastEventId
+     * @returns False when the id is missing, from another epoch, has aged out,
+     *          or is so far behind that the replay would overflow the queue
+     */
+    private boolean replay(Stream stream, Subscriber subscriber, String lastEventId) {
+        long lastSeen = parseSequence(lastEventId);
+        if (lastSeen < 0) {
+            return false;
+        }
+        OutboundEvent oldest = stream.recent.peekFirst();
+        long oldestBuffered = oldest != null ? oldest.sequence : stream.lastSequence + 1;
+        if (lastSeen > stream.lastSequence
+                || lastSeen < oldestBuffered - 1
+                || stream.lastSequence - lastSeen > queueCapacity) {
+            replayMissCounter.increment();
+            return false;
+        }
+        stream.recent.stream()
+            .filter(event -> event.sequence > lastSeen)
+            .forEach(event -> enqueue(subscriber, event));
+        replayedCounter.increment();
+        return true;
+    }
+
+    /**
+     * Removes an emitter from whichever stream it belongs to
+     * @param emitter Client emitter
+     */
+    public void unsubscribe(SseEmitter emitter) {
+        Subscriber subscriber = subscribers.remove(emitter);
+        if (subscriber == null) {
+            return;
+        }
+        subscriber.closed = true;
+        Stream stream = streams.get(subscriber.stream);
+        if (stream != null) {
+            stream.members.remove(subscriber);
+        }
+        Timer.builder("productivity.sse.session")
+            .description("How long an SSE subscriber stayed connected")
+            .tag("stream", streamTag(subscriber.stream))
+            .register(meterRegistry)
+            .record(System.nanoTime() - subscriber.connectedAt, TimeUnit.NANOSECONDS);
+        logger.debug("SSE subscriber removed from stream {}", subscriber.stream);
+        if (subscriber.onLeave != null) {
+            subscriber.onLeave.run();
+        }
+    }
+
+    /**
+     * @param stream Stream name
+     * @returns Metric tag for the stream: "store:<name>" streams share the tag "store"
+     */
+    private static String streamTag(String stream) {
+        int separator = stream.indexOf(':');
+        return separator < 0 ? stream : stream.substring(0, separator);
+    }
+
+    /**
+     * @param stream Stream name
+     * @returns Number of live subscribers on the stream
+     */
+    public int subscriberCount(String stream) {
+        Stream target = streams.get(stream);
+        return target != null ? target.members.size() : 0;
+    }
+
+    /**
+     * Forgets a stream that has no subscribers left, with its replay buffer
+     * @param stream Stream name
+     * @note A later broadcast or subscribe starts the stream afresh; clients
+     *       reconnecting with an old Last-Event-ID get a snapshot instead of a replay
+     */
+    public void removeStream(String stream) {
+        streams.computeIfPresent(stream, (key, target) -> target.members.isEmpty() ? null : target);
+    }
+
+    private Stream stream(String name) {
+        return streams.computeIfAbsent(name, key -> new Stream());
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Broadcasting
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Serializes a payload once and queues it for every subscriber of a stream
+     * @param stream Stream name
+     * @param payload Event data
+     * @note Returns immediately; delivery happens on the sender pool
+     */
+    public void broadcast(String stream, Object payload) {
+        broadcast(stream, null, payload);
+    }
+
+    /**
+     * Serializes a payload once and queues it as a named event for a stream
+     * @param stream Stream name
+     * @param eventName SSE event name, null for "message"
+     * @param payload Event data
+     * @note Events are buffered for replay even when nobody is subscribed
+     */
+    public void broadcast(String stream, String eventName, Object payload) {
+        String json;
+        try {
+            json = serialize(payload);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize SSE payload for stream {}", stream, e);
+            return;
+        }
+        Stream target = stream(stream);
+        target.lock.lock();
+        try {
+            long sequence = ++target.lastSequence;
+            OutboundEvent event = new OutboundEvent(sequence, eventId(sequence), eventName, json);
+            target.recent.addLast(event);
+            while (target.recent.size() > replayBufferSize) {
+                target.recent.pollFirst();
+            }
+            target.members.forEach(subscriber -> enqueue(subscriber, event));
+        } finally {
+            target.lock.unlock();
+        }
+    }
+
+    private String serialize(Object payload) throws JsonProcessingException {
+        return payload instanceof String text ? text : objectMapper.writeValueAsString(payload);
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * @returns Sequence encoded in an event id from this epoch, -1 otherwise
+     */
+    private long parseSequence(String eventId) {
+        if (eventId == null || !eventId.startsWith(epoch + "-")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Queues data for one subscriber, coalescing or dropping on overflow
+     */
+    private void enqueue(Subscriber subscriber, OutboundEvent event) {
+        if (subscriber.closed) {
+            return;
+        }
+        if (!subscriber.queue.offer(event)) {
+            if (subscriber.overflows.incrementAndGet() > maxOverflows) {
+                droppedCounter.increment();
+                logger.warn("Dropping slow SSE subscriber on stream {}", subscriber.stream);
+                disconnect(subscriber, null);
+                return;
+            }
+            subscriber.queue.clear();
+            subscriber.queue.offer(event);
+            coalescedCounter.increment();
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                senderPool.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false);
+                logger.warn("SSE sender pool rejected drain task", e);
+            }
+        }
+    }
+
+    /**
+     * Sends queued events for one subscriber on a sender thread
+     * @note Only one drain runs per subscriber, so the emitter is never written concurrently
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            OutboundEvent event;
+            while (!subscriber.closed && (event = subscriber.queue.poll()) != null) {
+                long start = System.nanoTime();
+                try {
+                    SseEmitter.SseEventBuilder builder = SseEmitter.event()
+                        .data(event.data)
+                        .reconnectTime(RECONNECT_TIME);
+                    if (event.id != null) {
+                        builder.id(event.id);
+                    }
+                    if (event.name != null) {
+                        builder.name(event.name);
+                    }
+                    subscriber.emitter.send(builder);
+                } catch (Exception e) {
+                    logger.debug("Failed to send SSE update, removing subscriber", e);
+                    disconnect(subscriber, e);
+                    return;
+                } finally {
+                    sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+            subscriber.overflows.set(0);
+        } finally {
+            subscriber.draining.set(false);
+            if (!subscriber.closed && !subscriber.queue.isEmpty()) {
+                scheduleDrain(subscriber);
+            }
+        }
+    }
+
+    private void disconnect(Subscriber subscriber, Exception cause) {
+        unsubscribe(subscriber.emitter);
+        subscriber.queue.clear();
+        try {
+            if (cause != null) {
+                subscriber.emitter.completeWithError(cause);
+            } else {
+                subscriber.emitter.complete();
+            }
+        } catch (Exception e) {
+            logger.debug("Error completing emitter", e);
+        }
+    }
+
+    /**
+     * Queues a heartbeat for every subscriber
+     * @note Carries no id, so the client's Last-Event-ID is left untouched;
+     *       skipped for subscribers whose queue is already full
+     */
+    private void sendHeartbeats() {
+        subscribers.values().forEach(subscriber -> {
+            if (!subscriber.closed && subscriber.queue.offer(HEARTBEAT)) {
+                scheduleDrain(subscriber);
+            }
+        });
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Lifecycle
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Completes every emitter and stops the sender and heartbeat threads
+     */
+    @PreDestroy
+    public void shutdown() {
+        logger.info("Shutting down SSE broadcaster with {} subscribers", subscribers.size());
+        heartbeatScheduler.shutdownNow();
+        subscribers.values().forEach(subscriber -> disconnect(subscriber, null));
+        senderPool.shutdown();
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Stream and Subscriber State
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Members, sequence and replay buffer of one stream
+     * @note lastSequence and recent are guarded by lock
+     */
+    private static final class Stream {
+        private final Set<Subscriber> members = ConcurrentHashMap.newKeySet();
+        private final Lock lock = new ReentrantLock();
+        private final Deque<OutboundEvent> recent = new ArrayDeque<>();
+        private long lastSequence = 0L;
+    }
+
+    private static final class Subscriber {
+        private final String stream;
+        private final SseEmitter emitter;
+        private final BlockingQueue<OutboundEvent> queue;
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private final AtomicInteger overflows = new AtomicInteger(0);
+        private volatile boolean closed = false;
+        private final long connectedAt = System.nanoTime();
+        private final Runnable onLeave;
+
+        private Subscriber(String stream, SseEmitter emitter, int capacity, Runnable onLeave) {
+            this.stream = stream;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.onLeave = onLeave;
+        }
+    }
+
+    /**
+     * Pre-serialized event shared by every subscriber of one broadcast
+     */
+    private static final class OutboundEvent {
+        private final long sequence;
+        private final String id;
+        private final String name;
+        private final String data;
+
+        private OutboundEvent(long sequence, String id, String name, String data) {
+            this.sequence = sequence;
+            this.id = id;
+            this.name = name;
+            this.data = data;
+        }
+
+        private OutboundEvent(String id, String name, String data) {
+            this(0L, id, name, data);
+        }
+    }
+}
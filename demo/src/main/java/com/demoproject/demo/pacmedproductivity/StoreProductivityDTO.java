@@ -0,0 +1,59 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import lombok.Value;
+
+import java.util.List;
+
+/* ==========================================================================
+ * Store Productivity Data Transfer Object
+ *
+ * PURPOSE: Productivity totals for one store, optionally with its users
+ * USAGE: Served by /api/productivity/stores and pushed on the store:<name>
+ *        SSE stream consumed by that store's wall display
+ *
+ * @note users is null in the all-stores summary
+ * ========================================================================== */
+@Value
+public class StoreProductivityDTO {
+
+    /**
+     * Store name as recorded on PAC entries
+     */
+    String store;
+
+    long totalSubmissions;
+    long totalPouchesChecked;
+
+    /**
+     * Seconds spent per pouch across the store
+     */
+    double avgTimePerPouch;
+
+    /**
+     * Pouches checked per hour across the store
+     */
+    double avgPouchesPerHour;
+
+    /**
+     * Users who submitted at this store, in leaderboard order
+     * @note Figures only count submissions made at this store
+     */
+    List<UserProductivityDTO> users;
+
+    /**
+     * @param store Store name
+     * @param totals Store-wide sums
+     * @param users Per-user rows, or null for a summary
+     * @returns DTO with averages derived from the totals
+     */
+    public static StoreProductivityDTO of(String store, ProductivityTotals totals, List<UserProductivityDTO> users) {
+        return new StoreProductivityDTO(
+            store,
+            totals.getSubmissions(),
+            totals.getPouchesChecked(),
+            totals.getAvgTimePerPouch(),
+            totals.getAvgPouchesPerHour(),
+            users
+        );
+    }
+}
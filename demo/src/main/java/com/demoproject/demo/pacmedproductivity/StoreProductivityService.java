@@ -0,0 +1,279 @@
+/* =============================================================================
+ * Store Productivity Service
+ * =============================================================================
+ * PURPOSE: Serves per-store productivity and a store-filtered SSE stream
+ * DEPENDENCIES:
+ * - PacRepository (store aggregates over pac_daily_user_rollup)
+ * - "storeProductivity" Caffeine cache
+ * - SseBroadcaster and ProductivityUpdateNotifier (one "store:<name>" stream per store)
+ * - Micrometer (per-store read and cache load timers)
+ *
+ * FLOW:
+ * 1. A committed PAC change evicts its store's entry and the all-stores summary
+ * 2. The store's stream is signalled; the notifier coalesces the burst
+ * 3. One recompute is pushed only to subscribers of that store
+ *
+ * @note A store stream exists only while it has subscribers: it is registered
+ *       by the first one and dropped, meters included, when the last one leaves
+ * @note Only stores with submissions in the rollup can be subscribed to, so
+ *       arbitrary store names in URLs cannot add streams or meter series
+ */
+package com.demoproject.demo.pacmedproductivity;
+
+import com.demoproject.demo.repository.PacRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Service
+public class StoreProductivityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoreProductivityService.class);
+    public static final String CACHE_NAME = "storeProductivity";
+    public static final String STREAM_PREFIX = "store:";
+    private static final String ALL_STORES_KEY = "*";
+    // Store tag for names with no submissions, so arbitrary URLs cannot add series
+    private static final String UNKNOWN_STORE_TAG = "unknown";
+
+    private final PacRepository pacRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final SseBroadcaster broadcaster;
+    private final ProductivityUpdateNotifier notifier;
+    private final MeterRegistry meterRegistry;
+    private final Timer loadTimer;
+
+    // Bumped on every eviction so a load that raced a commit is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+    // Subscribers per store stream; a store is registered while it has an entry
+    private final ConcurrentMap<String, Integer> storeSubscribers = new ConcurrentHashMap<>();
+
+    /**
+     * @param pacRepository Store aggregate queries
+     * @param transactionManager Transaction manager for the read queries
+     * @param cacheManager Holds the storeProductivity cache
+     * @param broadcaster SSE fan-out for store streams
+     * @param notifier Coalesces change signals per store
+     * @param meterRegistry Metrics registry for read and cache load times
+     */
+    public StoreProductivityService(PacRepository pacRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    CacheManager cacheManager,
+                                    SseBroadcaster broadcaster,
+                                    ProductivityUpdateNotifier notifier,
+                                    MeterRegistry meterRegistry) {
+        this.pacRepository = pacRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.cacheManager = cacheManager;
+        this.broadcaster = broadcaster;
+        this.notifier = notifier;
+        this.meterRegistry = meterRegistry;
+        this.loadTimer = Timer.builder("productivity.cache.load")
+            .tag("cache", CACHE_NAME)
+            .register(meterRegistry);
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Queries
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * @returns Totals for every store with submissions, ordered by store name
+     */
+    @SuppressWarnings("unchecked")
+    @Timed(value = "productivity.read", extraTags = {"endpoint", "stores"})
+    public List<StoreProductivityDTO> getAllStoreProductivity() {
+        return (List<StoreProductivityDTO>) cached(ALL_STORES_KEY, () ->
+            transactionTemplate.execute(status -> pacRepository.getStoreProductivityTotals()).stream()
+                .map(row -> StoreProductivityDTO.of((String) row[0], toTotals(row), null))
+                .toList());
+    }
+
+    /**
+     * @param store Store name
+     * @returns Store totals with per-user rows for that store
+     * @note Unknown stores return zero totals and no users
+     * @note Timed per store as productivity.store.read; unknown stores share one tag
+     */
+    public StoreProductivityDTO getStoreProductivity(String store) {
+        long start = System.nanoTime();
+        StoreProductivityDTO result = loadStoreProductivity(store);
+        boolean known = result.getUsers() != null && !result.getUsers().isEmpty();
+        Timer.builder("productivity.store.read")
+            .tag("store", known ? store : UNKNOWN_STORE_TAG)
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private StoreProductivityDTO loadStoreProductivity(String store) {
+        return (StoreProductivityDTO) cached(store, () -> {
+            List<Object[]> rows = transactionTemplate.execute(status -> pacRepository.getStoreUserProductivityTotals(store));
+            ProductivityTotals storeTotals = ProductivityTotals.EMPTY;
+            for (Object[] row : rows) {
+                storeTotals = storeTotals.plus(toTotals(row));
+            }
+            List<UserProductivityDTO> users = rows.stream()
+                .map(row -> toTotals(row).toDTO((String) row[0]))
+                .sorted(ProductivityAccumulator.RANKING)
+                .toList();
+            return StoreProductivityDTO.of(store, storeTotals, users);
+        });
+    }
+
+    private Object cached(String key, Supplier<Object> loader) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            Cache.ValueWrapper hit = cache.get(key);
+            if (hit != null) {
+                return hit.get();
+            }
+        }
+        long generation = invalidations.get();
+        Object value = loadTimer.record(loader);
+        if (cache != null && invalidations.get() == generation) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    private static ProductivityTotals toTotals(Object[] row) {
+        return new ProductivityTotals(
+            ((Number) row[1]).longValue(),
+            ((Number) row[2]).longValue(),
+            ((Number) row[3]).longValue()
+        );
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Store Streams
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * @param store Store name
+     * @returns SSE stream name for the store
+     */
+    public static String streamName(String store) {
+        return STREAM_PREFIX + store;
+    }
+
+    /**
+     * Subscribes a wall display to one store's updates
+     * @param store Store name
+     * @param lastEventId Last-Event-ID from a reconnecting client, or null
+     * @returns Emitter receiving the store snapshot, then one event per change window
+     * @throws NoSuchElementException if the store has no submissions
+     */
+    public SseEmitter subscribe(String store, String lastEventId) {
+        if (!isKnownStore(store)) {
+            throw new NoSuchElementException("No submissions for store " + store);
+        }
+        SseEmitter emitter = new SseEmitter(UserProductivityService.SSE_TIMEOUT);
+        try {
+            acquireStream(store);
+            broadcaster.subscribe(streamName(store), emitter, lastEventId, null,
+                () -> getStoreProductivity(store), () -> releaseStream(store));
+        } catch (Exception e) {
+            logger.error("Error in store productivity SSE setup for {}", store, e);
+            broadcaster.unsubscribe(emitter);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    private boolean isKnownStore(String store) {
+        return getAllStoreProductivity().stream().anyMatch(summary -> store.equals(summary.getStore()));
+    }
+
+    private void acquireStream(String store) {
+        storeSubscribers.compute(store, (key, count) -> {
+            if (count == null) {
+                notifier.registerIfAbsent(streamName(key), () -> flush(key));
+                return 1;
+            }
+            return count + 1;
+        });
+    }
+
+    /**
+     * Drops the store's notifier and broadcaster state with its last subscriber
+     * @note Runs from SseBroadcaster.unsubscribe, once per subscriber
+     */
+    private void releaseStream(String store) {
+        storeSubscribers.computeIfPresent(store, (key, count) -> {
+            if (count > 1) {
+                return count - 1;
+            }
+            notifier.unregister(streamName(key));
+            broadcaster.removeStream(streamName(key));
+            return null;
+        });
+    }
+
+    private void flush(String store) {
+        String stream = streamName(store);
+        if (broadcaster.subscriberCount(stream) == 0) {
+            return;
+        }
+        broadcaster.broadcast(stream, getStoreProductivity(store));
+    }
+
+    /* -----------------------------------------------------------------------------
+     * Change Handling
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Evicts and signals the store a committed PAC change belongs to
+     * @param event Committed PAC change
+     * @note Also called by ProductivityClusterRelay for changes from other nodes
+     * @note Stores nobody is watching have no registered stream, so the signal is dropped
+     */
+    @TransactionalEventListener
+    @Order(12)
+    public void onPacChange(PacChangeEvent event) {
+        String store = event.getStore();
+        if (store == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.evict(store);
+            cache.evict(ALL_STORES_KEY);
+        }
+        notifier.signal(streamName(store));
+    }
+
+    /**
+     * Evicts every store entry
+     * @note Used after bulk writes that bypass PacChangeEvent; open store
+     *       streams pick the new totals up on their next change
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
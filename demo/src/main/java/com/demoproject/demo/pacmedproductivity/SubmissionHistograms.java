@@ -0,0 +1,132 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import org.HdrHistogram.DoubleHistogram;
+
+/* ==========================================================================
+ * Submission Histograms
+ *
+ * PURPOSE: Fixed-memory distributions of per-submission speed
+ * USAGE: One instance per user and one overall, held by ProductivityHistograms
+ *
+ * @note Backed by auto-ranging HdrHistogram DoubleHistograms at 2 significant
+ *       digits, so memory stays a few KB regardless of submission count
+ * @note Instances merge with add(), e.g. across stores or nodes
+ * @note All methods synchronize on the instance; DoubleHistogram is not thread-safe
+ * @note Submissions with negative durations (end before start, e.g. a shift
+ *       crossing midnight) or negative pouch counts are left out: HdrHistogram
+ *       cannot hold negative values
+ * ========================================================================== */
+public final class SubmissionHistograms {
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final DoubleHistogram timePerPouch;
+    private final DoubleHistogram pouchesPerHour;
+
+    public SubmissionHistograms() {
+        this(new DoubleHistogram(SIGNIFICANT_DIGITS), new DoubleHistogram(SIGNIFICANT_DIGITS));
+    }
+
+    private SubmissionHistograms(DoubleHistogram timePerPouch, DoubleHistogram pouchesPerHour) {
+        this.timePerPouch = timePerPouch;
+        this.pouchesPerHour = pouchesPerHour;
+    }
+
+    /* ------------------------------------------------------------------------
+     * Recording
+     * -------------------------------------------------------------------- */
+
+    /**
+     * @param pouches Pouches checked in one submission
+     * @param seconds Duration of that submission
+     * @param count Number of identical submissions to record
+     */
+    public synchronized void record(long pouches, long seconds, long count) {
+        if (count <= 0 || !isRecordable(pouches, seconds)) {
+            return;
+        }
+        if (pouches > 0) {
+            timePerPouch.recordValueWithCount((double) seconds / pouches, count);
+        }
+        if (seconds > 0) {
+            pouchesPerHour.recordValueWithCount(pouches * 3600.0 / seconds, count);
+        }
+    }
+
+    /**
+     * Takes one previously recorded submission back out
+     * @param pouches Pouches checked in the removed submission
+     * @param seconds Duration of the removed submission
+     * @note A value whose bucket is already empty is ignored rather than
+     *       driving a count negative
+     */
+    public synchronized void remove(long pouches, long seconds) {
+        if (!isRecordable(pouches, seconds)) {
+            return;
+        }
+        if (pouches > 0) {
+            decrement(timePerPouch, (double) seconds / pouches);
+        }
+        if (seconds > 0) {
+            decrement(pouchesPerHour, pouches * 3600.0 / seconds);
+        }
+    }
+
+    private static boolean isRecordable(long pouches, long seconds) {
+        return pouches >= 0 && seconds >= 0;
+    }
+
+    private static void decrement(DoubleHistogram histogram, double value) {
+        if (histogram.getCountAtValue(value) > 0) {
+            histogram.recordValueWithCount(value, -1);
+        }
+    }
+
+    /* ------------------------------------------------------------------------
+     * Merging
+     * -------------------------------------------------------------------- */
+
+    /**
+     * @param other Histograms to fold into this one
+     * @note other is copied under its own lock first, so two instances never
+     *       hold each other's monitors
+     */
+    public void add(SubmissionHistograms other) {
+        SubmissionHistograms source = other.copy();
+        synchronized (this) {
+            timePerPouch.add(source.timePerPouch);
+            pouchesPerHour.add(source.pouchesPerHour);
+        }
+    }
+
+    /**
+     * @returns Independent copy of both histograms
+     */
+    public synchronized SubmissionHistograms copy() {
+        return new SubmissionHistograms(timePerPouch.copy(), pouchesPerHour.copy());
+    }
+
+    /* ------------------------------------------------------------------------
+     * Reads
+     * -------------------------------------------------------------------- */
+
+    /**
+     * @returns p50/p90/p99 of both metrics, without touching any submission row
+     */
+    public synchronized ProductivityPercentiles percentiles() {
+        return new ProductivityPercentiles(summarize(timePerPouch), summarize(pouchesPerHour));
+    }
+
+    private static PercentileSummary summarize(DoubleHistogram histogram) {
+        long count = histogram.getTotalCount();
+        if (count <= 0) {
+            return PercentileSummary.EMPTY;
+        }
+        return new PercentileSummary(
+            count,
+            histogram.getValueAtPercentile(50.0),
+            histogram.getValueAtPercentile(90.0),
+            histogram.getValueAtPercentile(99.0)
+        );
+    }
+}
@@ -0,0 +1,89 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/* ==========================================================================
+ * Timeseries Granularity
+ *
+ * PURPOSE: Bucket sizes supported by /api/productivity/timeseries
+ * USAGE: Aligns a requested date range to whole buckets before querying
+ *
+ * @note HOUR buckets read the pac table; DAY and WEEK read the daily rollup
+ * @note Weeks start on Monday, matching PostgreSQL date_trunc('week')
+ * ========================================================================== */
+public enum TimeseriesGranularity {
+
+    HOUR("hour", "1 hour", 24 * 31),
+    DAY("day", "1 day", 366),
+    WEEK("week", "1 week", 157);
+
+    private final String truncUnit;
+    private final String step;
+    private final int maxBuckets;
+
+    TimeseriesGranularity(String truncUnit, String step, int maxBuckets) {
+        this.truncUnit = truncUnit;
+        this.step = step;
+        this.maxBuckets = maxBuckets;
+    }
+
+    /**
+     * @returns Field name accepted by PostgreSQL date_trunc
+     */
+    public String getTruncUnit() {
+        return truncUnit;
+    }
+
+    /**
+     * @returns Bucket width as a PostgreSQL interval literal
+     */
+    public String getStep() {
+        return step;
+    }
+
+    /**
+     * @returns Largest number of buckets one request may span
+     */
+    public int getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    /* .... Range Alignment .... */
+
+    /**
+     * @param from First requested day
+     * @returns Start of the bucket containing from
+     */
+    public LocalDateTime alignStart(LocalDate from) {
+        return this == WEEK
+            ? from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay()
+            : from.atStartOfDay();
+    }
+
+    /**
+     * @param to Last requested day (inclusive)
+     * @returns Exclusive end of the bucket containing to
+     */
+    public LocalDateTime alignEnd(LocalDate to) {
+        return this == WEEK
+            ? to.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).plusWeeks(1).atStartOfDay()
+            : to.plusDays(1).atStartOfDay();
+    }
+
+    /**
+     * @param start Aligned range start
+     * @param end Aligned exclusive range end
+     * @returns Number of buckets between the two
+     */
+    public long bucketCount(LocalDateTime start, LocalDateTime end) {
+        return switch (this) {
+            case HOUR -> ChronoUnit.HOURS.between(start, end);
+            case DAY -> ChronoUnit.DAYS.between(start, end);
+            case WEEK -> ChronoUnit.WEEKS.between(start, end);
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import lombok.Value;
+
+import com.demoproject.demo.entity.PacDailyUserRollup;
+
+import java.time.LocalDateTime;
+
+/* ==========================================================================
+ * Timeseries Cache Key
+ *
+ * PURPOSE: Identifies one cached timeseries in "productivityTimeseries"
+ * USAGE: Built by ProductivityTimeseriesService from an aligned request and
+ *        matched against committed PAC changes for targeted eviction
+ *
+ * @note username and store are empty strings when not filtered
+ * ========================================================================== */
+@Value
+public class TimeseriesKey {
+
+    TimeseriesGranularity granularity;
+    LocalDateTime start;
+    LocalDateTime end;
+    String username;
+    String store;
+
+    /**
+     * @param event Committed PAC change
+     * @returns True if the change lands in one of this series' buckets
+     * @note Undated entries count toward the rollup's 1970-01-01 bucket
+     */
+    public boolean covers(PacChangeEvent event) {
+        if (!username.isEmpty() && !username.equals(event.getUsername())) {
+            return false;
+        }
+        if (!store.isEmpty() && !store.equals(event.getStore())) {
+            return false;
+        }
+        LocalDateTime at = event.getSubmissionDate() != null
+            ? event.getSubmissionDate()
+            : PacDailyUserRollup.UNDATED.atStartOfDay();
+        return !at.isBefore(start) && at.isBefore(end);
+    }
+}
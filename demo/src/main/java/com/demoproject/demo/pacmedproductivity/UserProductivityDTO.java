@@ -1,6 +1,8 @@
 package com.demoproject.demo.pacmedproductivity;
 
+import lombok.AllArgsConstructor;
 import lombok.Value;
+import lombok.With;
 import java.util.Map;
 
 /* ==========================================================================
@@ -11,8 +13,10 @@ import java.util.Map;
  * 
  * @note This is an immutable value object using Lombok @Value
  * @note All numeric fields use primitive types to optimize performance
+ * @note percentiles is null wherever only the means are computed
  * ========================================================================== */
 @Value
+@AllArgsConstructor
 public class UserProductivityDTO {
     
     /* ------------------------------------------------------------------------
@@ -71,4 +75,24 @@ public class UserProductivityDTO {
      * @note May contain time series, aggregates, or comparison data
      */
     Map<String, Object> chartData;
+
+    /* ------------------------------------------------------------------------
+     * Distribution
+     * -------------------------------------------------------------------- */
+
+    /**
+     * p50/p90/p99 of per-submission time per pouch and pouches per hour
+     * @note Read from ProductivityHistograms, never from a submission scan
+     */
+    @With
+    ProductivityPercentiles percentiles;
+
+    /**
+     * Creates a DTO carrying means only
+     */
+    public UserProductivityDTO(String username, long totalSubmissions, long totalPouchesChecked,
+                               double avgTimePerPouch, double avgPouchesPerHour,
+                               Map<String, Object> chartData) {
+        this(username, totalSubmissions, totalPouchesChecked, avgTimePerPouch, avgPouchesPerHour, chartData, null);
+    }
 }
@@ -0,0 +1,37 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import lombok.Value;
+import java.util.List;
+
+/* ==========================================================================
+ * User Productivity Delta Data Transfer Object
+ * 
+ * PURPOSE: Changes to the per-user productivity stream between two versions
+ * USAGE: "delta" events on /api/user-productivity-stream
+ * 
+ * @note Clients whose local version differs from baseVersion must fetch
+ *       a fresh snapshot instead of applying the delta
+ * ========================================================================== */
+@Value
+public class UserProductivityDeltaDTO {
+
+    /**
+     * Stream version after applying this delta
+     */
+    long version;
+
+    /**
+     * Stream version this delta was computed against
+     */
+    long baseVersion;
+
+    /**
+     * Users whose figures changed, with their new values
+     */
+    List<UserProductivityDTO> users;
+
+    /**
+     * Users who no longer have any submissions
+     */
+    List<String> removed;
+}
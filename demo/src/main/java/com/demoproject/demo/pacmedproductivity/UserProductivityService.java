@@ -4,44 +4,51 @@
  * PURPOSE: Manages user productivity metrics, caching, and real-time updates
  * DEPENDENCIES: 
  * - Spring Framework
- * - Jackson ObjectMapper
  * - JPA/Hibernate
- * - Server-Sent Events (SSE)
+ * - Server-Sent Events (SSE) via SseBroadcaster
+ * - ProductivityAccumulator (in-memory totals, see PacChangeEvent)
+ * - ProductivityHistograms (in-memory percentiles)
+ * - RefreshAheadCache (overall and per-user figures, served while reloading)
+ *
+ * USER STREAM PROTOCOL:
+ * - "snapshot" event on connect: UserProductivitySnapshotDTO at the current version
+ * - "delta" events afterwards: only users changed since baseVersion
+ * - A client whose version != baseVersion refetches /api/user-productivity-snapshot
  * 
  * @author DemoProject Team
  * @version 1.0
  */
 package com.demoproject.demo.pacmedproductivity;
 
-import com.demoproject.demo.entity.Pac;
 import com.demoproject.demo.repository.PacRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.annotation.Timed;
 import jakarta.annotation.PreDestroy;
 import org.springframework.transaction.annotation.Transactional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.caffeine.CaffeineCache;
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
 import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /* -----------------------------------------------------------------------------
  * Core Service Configuration
@@ -50,25 +57,59 @@ import java.util.stream.Collectors;
 public class UserProductivityService {
 
     private final PacRepository pacRepository;
-    private final ObjectMapper objectMapper;
     private static final Logger logger = LoggerFactory.getLogger(UserProductivityService.class);
-    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
     public static final long SSE_TIMEOUT = 300000L; // 5 minutes
+    public static final String USERS_STREAM = "users";
+    public static final String OVERALL_STREAM = "overall";
+    public static final String SNAPSHOT_EVENT = "snapshot";
+    public static final String DELTA_EVENT = "delta";
+    private static final String OVERALL_KEY = "Overall";
     private final TransactionTemplate transactionTemplate;
-    private final CacheManager cacheManager;
+    private final RefreshAheadCache<String, UserProductivityDTO> overallCache;
+    private final RefreshAheadCache<String, Map<String, Object>> userCache;
+    private final ProductivityAccumulator accumulator;
+    private final ProductivityHistograms histograms;
+    private final SseBroadcaster broadcaster;
+    private final ProductivityUpdateNotifier notifier;
+
+    // User stream versioning; the lock orders snapshots and deltas on every queue
+    private final Lock usersStreamLock = new ReentrantLock();
+    private final Set<String> changedUsers = ConcurrentHashMap.newKeySet();
+    private volatile boolean snapshotRequired = false;
+    private long usersStreamVersion = 0L;
 
     /**
      * Service constructor
      * @param pacRepository Data access for PAC records
-     * @param objectMapper JSON serialization
      * @param transactionManager Transaction manager
-     * @param cacheManager Cache manager
+     * @param accumulator In-memory productivity totals
+     * @param histograms In-memory productivity percentiles
+     * @param broadcaster SSE fan-out for both productivity streams
+     * @param notifier Coalesces change signals before each broadcast
+     * @param meterRegistry Metrics registry for cache staleness and loads
+     * @param taskExecutor Boot's applicationTaskExecutor; runs every cache load
+     * @param refreshAfter Age after which a cached figure is reloaded on read
+     * @param maxUsers Most users whose figures are cached at once
      */
-    public UserProductivityService(PacRepository pacRepository, ObjectMapper objectMapper, PlatformTransactionManager transactionManager, CacheManager cacheManager) {
+    public UserProductivityService(PacRepository pacRepository, PlatformTransactionManager transactionManager,
+                                   ProductivityAccumulator accumulator, ProductivityHistograms histograms,
+                                   SseBroadcaster broadcaster, ProductivityUpdateNotifier notifier,
+                                   MeterRegistry meterRegistry,
+                                   @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+                                   @Value("${productivity.cache.refresh-after:5m}") Duration refreshAfter,
+                                   @Value("${productivity.cache.max-users:1000}") long maxUsers) {
         this.pacRepository = pacRepository;
-        this.objectMapper = objectMapper;
         this.transactionTemplate = new TransactionTemplate(transactionManager);
-        this.cacheManager = cacheManager;
+        this.overallCache = new RefreshAheadCache<>("overallProductivity",
+            key -> loadOverallProductivity(), taskExecutor, refreshAfter, 1, meterRegistry);
+        this.userCache = new RefreshAheadCache<>("userProductivity",
+            this::loadUserProductivity, taskExecutor, refreshAfter, maxUsers, meterRegistry);
+        this.accumulator = accumulator;
+        this.histograms = histograms;
+        this.broadcaster = broadcaster;
+        this.notifier = notifier;
+        notifier.register(OVERALL_STREAM, this::notifyProductivityUpdate);
+        notifier.register(USERS_STREAM, this::sendProductivityUpdate);
     }
 
     /* -----------------------------------------------------------------------------
@@ -78,81 +119,56 @@ public class UserProductivityService {
     /**
      * Establishes SSE connection for real-time updates
      * @param emitter SSE emitter instance
+     * @param lastEventId Last-Event-ID from a reconnecting client, or null
      * @returns Configured emitter
-     * @throws IOException on connection errors
+     * @note Missed deltas are replayed when still buffered; otherwise a versioned
+     *       snapshot is sent first and later events are deltas against it
+     * @note Subscribing under the stream lock keeps the snapshot ahead of any delta
      */
-    @Transactional
-    public SseEmitter subscribeToProductivityUpdates(SseEmitter emitter) {
-        emitter.onTimeout(() -> {
-            emitters.remove(emitter);
-            emitter.complete();
-            logger.debug("SSE connection timed out");
-        });
-        
-        emitter.onCompletion(() -> {
-            emitters.remove(emitter);
-            logger.debug("SSE connection completed");
-        });
-        
-        emitter.onError(e -> {
-            emitters.remove(emitter);
+    public SseEmitter subscribeToProductivityUpdates(SseEmitter emitter, String lastEventId) {
+        usersStreamLock.lock();
+        try {
+            broadcaster.subscribe(USERS_STREAM, emitter, lastEventId, SNAPSHOT_EVENT,
+                () -> new UserProductivitySnapshotDTO(usersStreamVersion, currentUsers()));
+        } catch (Exception e) {
+            logger.error("Error in SSE setup", e);
+            broadcaster.unsubscribe(emitter);
             emitter.completeWithError(e);
-            logger.error("SSE connection error", e);
-        });
-        
-        return transactionTemplate.execute(status -> {
-            try {
-                emitters.add(emitter);
-                Page<UserProductivityDTO> initialData = getAllUserProductivity(0, Integer.MAX_VALUE);
-                String jsonData = objectMapper.writeValueAsString(initialData.getContent());
-                emitter.send(SseEmitter.event()
-                    .id(UUID.randomUUID().toString())
-                    .data(jsonData)
-                    .reconnectTime(5000));
-                return emitter;
-            } catch (Exception e) {
-                logger.error("Error in SSE setup", e);
-                emitter.completeWithError(e);
-                return emitter;
-            }
-        });
+        } finally {
+            usersStreamLock.unlock();
+        }
+        return emitter;
+    }
+
+    /**
+     * @returns Full per-user state at the current stream version
+     * @note Used by clients that detected a gap in the delta sequence
+     */
+    @Timed(value = "productivity.read", extraTags = {"endpoint", "users.snapshot"})
+    public UserProductivitySnapshotDTO getUserProductivitySnapshot() {
+        usersStreamLock.lock();
+        try {
+            return new UserProductivitySnapshotDTO(usersStreamVersion, currentUsers());
+        } finally {
+            usersStreamLock.unlock();
+        }
     }
 
     /**
      * Establishes SSE connection for overall metrics
+     * @param lastEventId Last-Event-ID from a reconnecting client, or null
      * @returns Configured emitter for overall updates
      */
-    public SseEmitter subscribeToOverallProductivityUpdates() {
+    public SseEmitter subscribeToOverallProductivityUpdates(String lastEventId) {
         SseEmitter emitter = new SseEmitter(SSE_TIMEOUT);
-        
-        return transactionTemplate.execute(status -> {
-            try {
-                UserProductivityDTO overallProductivity = getOverallProductivity();
-                emitter.send(SseEmitter.event()
-                    .id(UUID.randomUUID().toString())
-                    .data(objectMapper.writeValueAsString(overallProductivity))
-                    .reconnectTime(5000));
-                
-                emitter.onTimeout(() -> {
-                    emitters.remove(emitter);
-                    emitter.complete();
-                });
-                
-                emitter.onCompletion(() -> emitters.remove(emitter));
-                
-                emitter.onError(e -> {
-                    emitters.remove(emitter);
-                    emitter.completeWithError(e);
-                });
-                
-                emitters.add(emitter);
-                return emitter;
-            } catch (Exception e) {
-                logger.error("Error in overall productivity SSE setup", e);
-                emitter.completeWithError(e);
-                return emitter;
-            }
-        });
+        try {
+            broadcaster.subscribe(OVERALL_STREAM, emitter, lastEventId, null, this::currentOverallProductivity);
+        } catch (Exception e) {
+            logger.error("Error in overall productivity SSE setup", e);
+            broadcaster.unsubscribe(emitter);
+            emitter.completeWithError(e);
+        }
+        return emitter;
     }
 
     /* -----------------------------------------------------------------------------
@@ -164,14 +180,18 @@ public class UserProductivityService {
      * @param page Zero-based page number
      * @param size Results per page
      * @returns Page of productivity DTOs
-     * @note Results are cached by page/size
+     * @note Served from the accumulator's ranked leaderboard once seeded, in
+     *       O(log n + size), so pages are not cached
      */
-    @Cacheable(value = "allUserProductivity", key = "#page + '-' + #size", unless = "#result.isEmpty()")
     @Transactional(readOnly = true)
+    @Timed(value = "productivity.read", extraTags = {"endpoint", "users.page"})
     public Page<UserProductivityDTO> getAllUserProductivity(int page, int size) {
-        logger.info("Cache miss - Fetching all user productivity data for page {} with size {}", page, size);
+        logger.debug("Fetching all user productivity data for page {} with size {}", page, size);
         try {
             Pageable pageable = PageRequest.of(page, size);
+            if (accumulator.isSeeded()) {
+                return accumulator.getPage(pageable);
+            }
             return pacRepository.getUserProductivityDataPaginated(pageable)
                 .map(this::mapToUserProductivityDTO);
         } catch (Exception e) {
@@ -181,26 +201,112 @@ public class UserProductivityService {
     }
 
     /**
-     * Calculates overall productivity metrics
-     * @returns Aggregated productivity DTO
+     * Retrieves one keyset page of the leaderboard
+     * @param after Cursor token from the previous page, null for the first page
+     * @param size Results per page
+     * @param includeTotal Also count every leaderboard row
+     * @returns Slice with the next cursor, and the total only when requested
+     * @throws IllegalArgumentException if the cursor token is malformed
+     * @note Cost depends on size, not on how deep the cursor is
      */
-    @Cacheable(value = "overallProductivity", unless = "#result == null")
     @Transactional(readOnly = true)
+    @Timed(value = "productivity.read", extraTags = {"endpoint", "users.slice"})
+    public UserProductivitySliceDTO getUserProductivitySlice(String after, int size, boolean includeTotal) {
+        LeaderboardCursor cursor = after != null && !after.isBlank() ? LeaderboardCursor.decode(after) : null;
+        List<UserProductivityDTO> users;
+        Long total = null;
+        if (accumulator.isSeeded()) {
+            users = accumulator.getRankedAfter(cursor, size);
+            if (includeTotal) {
+                total = (long) accumulator.getUserCount();
+            }
+        } else {
+            users = pacRepository.getUserProductivityTotalsAfter(
+                    cursor != null ? cursor.getTotalSubmissions() : Long.MAX_VALUE,
+                    cursor != null ? cursor.getUsername() : "",
+                    size)
+                .stream()
+                .map(this::mapTotalsToUserProductivityDTO)
+                .toList();
+            if (includeTotal) {
+                total = pacRepository.countProductiveUsers();
+            }
+        }
+        String nextCursor = users.size() == size
+            ? LeaderboardCursor.after(users.get(users.size() - 1)).encode()
+            : null;
+        return new UserProductivitySliceDTO(users, nextCursor, total);
+    }
+
+    /**
+     * Retrieves the leaders for one metric
+     * @param metric Score to rank by
+     * @param k Number of leaders
+     * @returns Top k users with rank and score
+     * @note O(log n + k) from the in-memory leaderboard once seeded
+     */
+    @Timed(value = "productivity.read", extraTags = {"endpoint", "leaderboard"})
+    public List<LeaderboardEntryDTO> getLeaderboard(LeaderboardMetric metric, int k) {
+        if (accumulator.isSeeded()) {
+            return accumulator.getTop(metric, k);
+        }
+        List<LeaderboardEntryDTO> ranked = rankFromTotals(metric, pacRepository.getUserProductivityTotals());
+        return ranked.subList(0, Math.min(k, ranked.size()));
+    }
+
+    /**
+     * Looks up one user's position for a metric
+     * @param metric Score to rank by
+     * @param username Target user
+     * @returns Rank and score, empty if the user has no submissions
+     * @note O(log n) from the in-memory leaderboard once seeded
+     */
+    @Timed(value = "productivity.read", extraTags = {"endpoint", "leaderboard.rank"})
+    public Optional<LeaderboardEntryDTO> getLeaderboardRank(LeaderboardMetric metric, String username) {
+        if (accumulator.isSeeded()) {
+            return accumulator.getRank(metric, username);
+        }
+        return rankFromTotals(metric, pacRepository.getUserProductivityTotals()).stream()
+            .filter(entry -> entry.getUser().getUsername().equals(username))
+            .findFirst();
+    }
+
+    /**
+     * Ranks raw totals rows when the accumulator is not seeded
+     * @param metric Score to rank by
+     * @param rows Arrays of [username, submissions, pouches, totalSeconds]
+     * @returns Every user in rank order
+     */
+    private List<LeaderboardEntryDTO> rankFromTotals(LeaderboardMetric metric, List<Object[]> rows) {
+        RankedLeaderboard board = new RankedLeaderboard();
+        for (Object[] row : rows) {
+            ProductivityTotals totals = new ProductivityTotals(
+                ((Number) row[1]).longValue(),
+                ((Number) row[2]).longValue(),
+                ((Number) row[3]).longValue()
+            );
+            board.insert((String) row[0], metric.score(totals), totals);
+        }
+        List<UserProductivityDTO> users = board.range(0, board.size());
+        List<LeaderboardEntryDTO> ranked = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            ranked.add(new LeaderboardEntryDTO(metric, i + 1, metric.score(users.get(i)), users.get(i)));
+        }
+        return ranked;
+    }
+
+    /**
+     * Calculates overall productivity metrics
+     * @returns Aggregated productivity DTO with overall percentiles
+     * @note Served from the refresh-ahead cache; after a change the previous
+     *       figures are returned while one background load recomputes them
+     */
+    @Timed(value = "productivity.read", extraTags = {"endpoint", "overall"})
     public UserProductivityDTO getOverallProductivity() {
-        logger.info("Cache miss - Calculating overall productivity metrics");
         try {
-            return transactionTemplate.execute(status -> {
-                List<Pac> allPacs = pacRepository.findAll();
-                List<UserProductivityDTO> allProductivity = allPacs.stream()
-                    .collect(Collectors.groupingBy(pac -> pac.getUser().getUsername()))
-                    .entrySet().stream()
-                    .map(this::mapToUserProductivityDTO)
-                    .collect(Collectors.toList());
-
-                return calculateOverallProductivity(allProductivity);
-            });
-        } catch (Exception e) {
-            logger.error("Error calculating overall productivity", e);
+            return overallCache.get(OVERALL_KEY);
+        } catch (CompletionException e) {
+            logger.error("Error calculating overall productivity", e.getCause());
             return getFallbackOverallProductivity();
         }
     }
@@ -208,36 +314,59 @@ public class UserProductivityService {
     /**
      * Gets productivity metrics for specific user
      * @param username Target username
-     * @returns Map of productivity metrics
+     * @returns Map of productivity metrics, including "percentiles"
+     * @note Served from the refresh-ahead cache like getOverallProductivity
      */
-    @Cacheable(value = "userProductivity", key = "#username", unless = "#result == null", condition = "#username != null")
-    @Transactional(readOnly = true)
+    @Timed(value = "productivity.read", extraTags = {"endpoint", "user"})
     public Map<String, Object> getUserProductivity(String username) {
-        logger.info("Cache miss - Fetching productivity metrics for user: {}", username);
+        if (username == null) {
+            return getFallbackUserProductivity(null);
+        }
         try {
-            return transactionTemplate.execute(status -> {
-                Object[] result = pacRepository.getUserProductivityMetrics(username);
-                
-                long totalSubmissions = ((Number) result[0]).longValue();
-                long totalPouchesChecked = ((Number) result[1]).longValue();
-                double totalSeconds = ((Number) result[2]).doubleValue();
-                
-                double avgTimePerPouch = totalPouchesChecked > 0 ? totalSeconds / totalPouchesChecked : 0;
-                double avgPouchesPerHour = totalSeconds > 0 ? (totalPouchesChecked * 3600.0) / totalSeconds : 0;
-                
-                return Map.of(
-                    "totalSubmissions", totalSubmissions,
-                    "totalPouchesChecked", totalPouchesChecked,
-                    "avgPouchesPerHour", avgPouchesPerHour,
-                    "avgTimePerPouch", avgTimePerPouch
-                );
-            });
-        } catch (Exception e) {
-            logger.error("Error fetching productivity metrics for user: {}", username, e);
+            return userCache.get(username);
+        } catch (CompletionException e) {
+            logger.error("Error fetching productivity metrics for user: {}", username, e.getCause());
             return getFallbackUserProductivity(username);
         }
     }
 
+    /**
+     * Cache loader for overall figures
+     * @note Throws on failure so the fallback is returned but never cached
+     */
+    private UserProductivityDTO loadOverallProductivity() {
+        logger.info("Calculating overall productivity metrics");
+        if (accumulator.isSeeded()) {
+            return accumulator.getOverallTotals().toDTO("Overall")
+                .withPercentiles(histograms.getOverallPercentiles());
+        }
+        return transactionTemplate.execute(status -> calculateOverallProductivity())
+            .withPercentiles(histograms.getOverallPercentiles());
+    }
+
+    /**
+     * Cache loader for one user's figures
+     * @param username Target username
+     */
+    private Map<String, Object> loadUserProductivity(String username) {
+        logger.info("Fetching productivity metrics for user: {}", username);
+        if (accumulator.isSeeded()) {
+            return toProductivityMap(username, accumulator.getUserTotals(username).orElse(ProductivityTotals.EMPTY));
+        }
+        return transactionTemplate.execute(status ->
+            convertToUserProductivity(username, pacRepository.getUserProductivityMetrics(username)));
+    }
+
+    private Map<String, Object> toProductivityMap(String username, ProductivityTotals totals) {
+        return Map.of(
+            "totalSubmissions", totals.getSubmissions(),
+            "totalPouchesChecked", totals.getPouchesChecked(),
+            "avgPouchesPerHour", totals.getAvgPouchesPerHour(),
+            "avgTimePerPouch", totals.getAvgTimePerPouch(),
+            "percentiles", histograms.getUserPercentiles(username)
+        );
+    }
+
     private UserProductivityDTO getFallbackOverallProductivity() {
         return new UserProductivityDTO(
             "Overall",
@@ -264,90 +393,83 @@ public class UserProductivityService {
      * -------------------------------------------------------------------------- */
 
     /**
-     * Maps PAC records to productivity DTO
-     * @param entry Map entry of username and PAC records
-     * @returns Mapped productivity DTO
+     * Calculates overall productivity in a single aggregate statement
+     * @returns Aggregated productivity DTO with pouch-weighted averages
+     * @note Hydrates no entities; covered by a statement-count test
      */
-    private UserProductivityDTO mapToUserProductivityDTO(Map.Entry<String, List<Pac>> entry) {
-        String username = entry.getKey();
-        List<Pac> userPacs = entry.getValue();
-        
-        long totalSubmissions = userPacs.size();
-        long totalPouchesChecked = userPacs.stream().mapToLong(Pac::getPouchesChecked).sum();
-        double totalSeconds = userPacs.stream()
-            .mapToDouble(pac -> Duration.between(pac.getStartTime(), pac.getEndTime()).getSeconds())
-            .sum();
-
-        double avgTimePerPouch = totalPouchesChecked > 0 ? totalSeconds / totalPouchesChecked : 0;
-        double avgPouchesPerHour = totalSeconds > 0 ? (totalPouchesChecked * 3600.0) / totalSeconds : 0;
-
-        return new UserProductivityDTO(username, totalSubmissions, totalPouchesChecked, avgTimePerPouch, avgPouchesPerHour, null);
-    }
-
-    /**
-     * Calculates overall productivity from individual metrics
-     * @param allProductivity List of individual productivity DTOs
-     * @returns Aggregated productivity DTO
-     */
-    private UserProductivityDTO calculateOverallProductivity(List<UserProductivityDTO> allProductivity) {
-        long totalSubmissions = allProductivity.stream().mapToLong(UserProductivityDTO::getTotalSubmissions).sum();
-        long totalPouchesChecked = allProductivity.stream().mapToLong(UserProductivityDTO::getTotalPouchesChecked).sum();
-        double avgTimePerPouch = allProductivity.stream().mapToDouble(dto -> dto.getAvgTimePerPouch() * dto.getTotalPouchesChecked()).sum() / totalPouchesChecked;
-        double avgPouchesPerHour = allProductivity.stream().mapToDouble(UserProductivityDTO::getAvgPouchesPerHour).average().orElse(0.0);
-
-        return new UserProductivityDTO("Overall", totalSubmissions, totalPouchesChecked, avgTimePerPouch, avgPouchesPerHour, null);
+    UserProductivityDTO calculateOverallProductivity() {
+        OverallProductivityProjection totals = pacRepository.getOverallProductivityTotals();
+        return new UserProductivityDTO(
+            "Overall",
+            totals.getTotalSubmissions(),
+            totals.getTotalPouchesChecked(),
+            totals.getAvgTimePerPouch(),
+            totals.getAvgPouchesPerHour(),
+            null
+        );
     }
 
     /* -----------------------------------------------------------------------------
      * Real-time Update Notifications
      * -------------------------------------------------------------------------- */
 
+    /**
+     * Refreshes caches and clients once a PAC change has committed
+     * @param event Committed PAC change
+     * @note Ordered after ProductivityAccumulator so totals are already updated
+     * @note Cached figures are marked stale, not evicted: readers keep the last
+     *       value while the background reload runs
+     * @note Broadcasts are coalesced by ProductivityUpdateNotifier, never run inline
+     */
+    @TransactionalEventListener
+    @Order(10)
+    public void onPacChange(PacChangeEvent event) {
+        changedUsers.add(event.getUsername());
+        clearSpecificUserCache(event.getUsername());
+        overallCache.markStale(OVERALL_KEY);
+        notifier.signal(OVERALL_STREAM);
+        notifier.signal(USERS_STREAM);
+    }
+
     /**
      * Broadcasts productivity updates to all clients
      */
     public void notifyProductivityUpdate() {
-        UserProductivityDTO overallProductivity = getOverallProductivity();
-        sendUpdateToEmitters(overallProductivity);
+        UserProductivityDTO overallProductivity = currentOverallProductivity();
+        broadcaster.broadcast(OVERALL_STREAM, overallProductivity);
     }
 
     /**
      * Broadcasts overall metrics to all clients
      */
     public void sendOverallProductivityUpdate() {
-        UserProductivityDTO overallProductivity = getOverallProductivity();
-        sendUpdateToEmitters(overallProductivity);
+        UserProductivityDTO overallProductivity = currentOverallProductivity();
+        broadcaster.broadcast(OVERALL_STREAM, overallProductivity);
     }
 
     /**
-     * Sends data to all connected SSE clients
-     * @param data Data to broadcast
-     * @note Handles client disconnections
+     * @returns Live per-user figures with percentiles in leaderboard order
+     * @note Falls back to one aggregate query without paging or a count query
      */
-    private void sendUpdateToEmitters(Object data) {
-        List<SseEmitter> deadEmitters = new ArrayList<>();
-
-        emitters.forEach(emitter -> {
-            try {
-                String jsonData = objectMapper.writeValueAsString(data);
-                emitter.send(SseEmitter.event()
-                    .id(UUID.randomUUID().toString())
-                    .data(jsonData)
-                    .reconnectTime(5000));
-            } catch (Exception e) {
-                logger.error("Failed to send SSE update", e);
-                deadEmitters.add(emitter);
-                try {
-                    emitter.completeWithError(e);
-                } catch (Exception ex) {
-                    logger.error("Error completing emitter", ex);
-                }
-            }
-        });
+    private List<UserProductivityDTO> currentUsers() {
+        List<UserProductivityDTO> users = accumulator.isSeeded()
+            ? accumulator.getRankedUsers()
+            : pacRepository.getUserProductivityTotals().stream()
+                .map(this::mapTotalsToUserProductivityDTO)
+                .sorted(ProductivityAccumulator.RANKING)
+                .toList();
+        return users.stream()
+            .map(user -> user.withPercentiles(histograms.getUserPercentiles(user.getUsername())))
+            .toList();
+    }
 
-        if (!deadEmitters.isEmpty()) {
-            emitters.removeAll(deadEmitters);
-            logger.info("Removed {} dead emitters", deadEmitters.size());
-        }
+    /**
+     * @returns Live overall figures, bypassing the cache when the accumulator is seeded
+     */
+    private UserProductivityDTO currentOverallProductivity() {
+        return accumulator.isSeeded()
+            ? accumulator.getOverallTotals().toDTO("Overall").withPercentiles(histograms.getOverallPercentiles())
+            : getOverallProductivity();
     }
 
     /* -----------------------------------------------------------------------------
@@ -391,94 +513,67 @@ public class UserProductivityService {
         }
     }
 
+    /**
+     * Maps raw totals rows to productivity DTO
+     * @param result Array of [username, submissions, pouches, totalSeconds]
+     * @returns DTO with averages derived from the totals
+     */
+    private UserProductivityDTO mapTotalsToUserProductivityDTO(Object[] result) {
+        ProductivityTotals totals = new ProductivityTotals(
+            ((Number) result[1]).longValue(),
+            ((Number) result[2]).longValue(),
+            ((Number) result[3]).longValue()
+        );
+        return totals.toDTO((String) result[0]);
+    }
+
     /* -----------------------------------------------------------------------------
      * Cache Management and Monitoring
      * -------------------------------------------------------------------------- */
 
-    @CacheEvict(value = {"allUserProductivity", "userProductivity", "overallProductivity"}, 
-                allEntries = true)
+    /**
+     * Marks every cached figure stale after a bulk change
+     * @note Used after imports; nothing is evicted, so dashboards keep
+     *       answering while the figures reload
+     */
     @Transactional
     public void updateUserProductivity() {
-        logger.info("Updating user productivity and evicting all caches");
-        notifyProductivityUpdate();
-    }
-
-    @Scheduled(fixedRate = 3600000) // Every hour
-    @CacheEvict(value = {"allUserProductivity", "userProductivity", "overallProductivity"}, 
-                allEntries = true)
-    public void evictCaches() {
-        logger.info("Scheduled cache eviction executed");
+        logger.info("Updating user productivity and marking all cached figures stale");
+        overallCache.markStale(OVERALL_KEY);
+        userCache.markAllStale();
+        snapshotRequired = true;
+        notifier.signal(OVERALL_STREAM);
+        notifier.signal(USERS_STREAM);
     }
 
+    /**
+     * Marks one user's cached figures stale and reloads them in the background
+     * @param username Target username
+     */
     public void clearSpecificUserCache(String username) {
-        Cache cache = cacheManager.getCache("userProductivity");
-        if (cache != null) {
-            cache.evict(username);
-            logger.info("Evicted cache for user: {}", username);
-        }
+        userCache.markStale(username);
+        logger.debug("Marked cached productivity stale for user: {}", username);
     }
 
+    /**
+     * @returns Size and stale-key count of each productivity cache
+     * @note Staleness age, load times and reload counts are published as
+     *       productivity.cache.* meters
+     */
     public Map<String, Object> getDetailedCacheMetrics() {
-        Map<String, Object> metrics = new HashMap<>();
-        
-        Arrays.asList("allUserProductivity", "userProductivity", "overallProductivity")
-            .forEach(cacheName -> {
-                Cache cache = cacheManager.getCache(cacheName);
-                if (cache instanceof CaffeineCache) {
-                    com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = 
-                        ((CaffeineCache) cache).getNativeCache();
-                    
-                    metrics.put(cacheName, Map.of(
-                        "stats", nativeCache.stats(),
-                        "estimatedSize", nativeCache.estimatedSize(),
-                        "hitRate", nativeCache.stats().hitRate(),
-                        "missRate", nativeCache.stats().missRate(),
-                        "evictionCount", nativeCache.stats().evictionCount()
-                    ));
-                }
-            });
-        
-        return metrics;
-    }
-
-    @Scheduled(fixedRate = 900000) // Every 15 minutes
-    public void validateCacheConsistency() {
-        logger.info("Starting cache consistency check");
-        Cache userCache = cacheManager.getCache("userProductivity");
-        if (userCache instanceof CaffeineCache) {
-            CaffeineCache caffeineCache = (CaffeineCache) userCache;
-            caffeineCache.getNativeCache().asMap().forEach((key, value) -> {
-                try {
-                    if (key instanceof String) {
-                        String username = (String) key;
-                        Object[] dbResult = pacRepository.getUserProductivityMetrics(username);
-                        if (dbResult == null || !value.equals(convertToUserProductivity(dbResult))) {
-                            logger.warn("Cache inconsistency detected for user: {}", username);
-                            userCache.evict(key);
-                        }
-                    }
-                } catch (Exception e) {
-                    logger.error("Error during cache consistency check for key: {}", key, e);
-                    userCache.evict(key);
-                }
-            });
-        }
+        return Map.of(
+            "userProductivity", Map.of("size", userCache.size(), "stale", userCache.staleCount()),
+            "overallProductivity", Map.of("size", overallCache.size(), "stale", overallCache.staleCount())
+        );
     }
 
-    private Map<String, Object> convertToUserProductivity(Object[] result) {
-        long totalSubmissions = ((Number) result[0]).longValue();
-        long totalPouchesChecked = ((Number) result[1]).longValue();
-        double totalSeconds = ((Number) result[2]).doubleValue();
-        
-        double avgTimePerPouch = totalPouchesChecked > 0 ? totalSeconds / totalPouchesChecked : 0;
-        double avgPouchesPerHour = totalSeconds > 0 ? (totalPouchesChecked * 3600.0) / totalSeconds : 0;
-        
-        return Map.of(
-            "totalSubmissions", totalSubmissions,
-            "totalPouchesChecked", totalPouchesChecked,
-            "avgPouchesPerHour", avgPouchesPerHour,
-            "avgTimePerPouch", avgTimePerPouch
+    private Map<String, Object> convertToUserProductivity(String username, Object[] result) {
+        ProductivityTotals totals = new ProductivityTotals(
+            ((Number) result[0]).longValue(),
+            ((Number) result[1]).longValue(),
+            ((Number) result[2]).longValue()
         );
+        return toProductivityMap(username, totals);
     }
 
     /* -----------------------------------------------------------------------------
@@ -486,11 +581,56 @@ public class UserProductivityService {
      * -------------------------------------------------------------------------- */
 
     /**
-     * Broadcasts productivity data to all clients
+     * Broadcasts users changed since the last version to all clients
+     * @note Payload is O(changed users); a full snapshot is only sent after a
+     *       bulk invalidation or while the accumulator is not seeded
+     * @note Sent even without subscribers so the replay buffer has no holes
      */
     public void sendProductivityUpdate() {
-        Page<UserProductivityDTO> users = getAllUserProductivity(0, Integer.MAX_VALUE);
-        sendUpdateToEmitters(users);
+        usersStreamLock.lock();
+        try {
+            List<String> usernames = drainChangedUsers();
+            if (snapshotRequired || !accumulator.isSeeded()) {
+                snapshotRequired = false;
+                usersStreamVersion++;
+                broadcaster.broadcast(USERS_STREAM, SNAPSHOT_EVENT,
+                    new UserProductivitySnapshotDTO(usersStreamVersion, currentUsers()));
+                return;
+            }
+            if (usernames.isEmpty()) {
+                return;
+            }
+
+            List<UserProductivityDTO> changed = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
+            for (String username : usernames) {
+                Optional<ProductivityTotals> totals = accumulator.getUserTotals(username);
+                if (totals.isPresent()) {
+                    changed.add(totals.get().toDTO(username).withPercentiles(histograms.getUserPercentiles(username)));
+                } else {
+                    removed.add(username);
+                }
+            }
+            long baseVersion = usersStreamVersion++;
+            broadcaster.broadcast(USERS_STREAM, DELTA_EVENT,
+                new UserProductivityDeltaDTO(usersStreamVersion, baseVersion, changed, removed));
+        } finally {
+            usersStreamLock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns pending changed users
+     * @note Users marked while draining stay queued for the next flush
+     */
+    private List<String> drainChangedUsers() {
+        List<String> usernames = new ArrayList<>();
+        Iterator<String> iterator = changedUsers.iterator();
+        while (iterator.hasNext()) {
+            usernames.add(iterator.next());
+            iterator.remove();
+        }
+        return usernames;
     }
 
     /**
@@ -501,24 +641,10 @@ public class UserProductivityService {
         logger.info("Performing service cleanup");
         
         // Clear all caches
-        Arrays.asList("allUserProductivity", "userProductivity", "overallProductivity")
-            .forEach(cacheName -> {
-                Cache cache = cacheManager.getCache(cacheName);
-                if (cache != null) {
-                    cache.clear();
-                    logger.debug("Cleared cache: {}", cacheName);
-                }
-            });
-
-        // Cleanup SSE emitters
-        emitters.forEach(emitter -> {
-            try {
-                emitter.complete();
-            } catch (Exception e) {
-                logger.error("Error during emitter cleanup", e);
-            }
-        });
-        emitters.clear();
+        overallCache.clear();
+        userCache.clear();
+
+        // SSE emitters are completed by SseBroadcaster's own shutdown hook
         logger.info("Service cleanup completed");
     }
 
@@ -542,7 +668,7 @@ public class UserProductivityService {
      */
     public List<UserProductivityDTO> getAllUserProductivityMetrics() {
         logger.info("Retrieving productivity data for all users");
-        return getAllUserProductivity(0, Integer.MAX_VALUE).getContent();
+        return currentUsers();
     }
 
     /**
@@ -561,22 +687,7 @@ public class UserProductivityService {
      * @param emitter Emitter to remove
      */
     public void removeEmitter(SseEmitter emitter) {
-        emitters.remove(emitter);
+        broadcaster.unsubscribe(emitter);
         logger.debug("Removed SSE emitter");
     }
-
-    /**
-     * Checks if user exists
-     * @param username Username to check
-     * @returns True if user exists
-     */
-    @Transactional(readOnly = true)
-    public boolean userExists(String username) {
-        try {
-            return pacRepository.existsByUsername(username);
-        } catch (Exception e) {
-            logger.error("Error checking user existence for username: {}", username, e);
-            return false;
-        }
-    }
 }
@@ -0,0 +1,32 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import lombok.Value;
+import java.util.List;
+
+/* ==========================================================================
+ * User Productivity Slice Data Transfer Object
+ * 
+ * PURPOSE: One keyset page of the productivity leaderboard
+ * USAGE: Response of /api/all-user-productivity/keyset
+ * 
+ * @note nextCursor is null on the last page
+ * @note totalElements is only filled in when the caller asks for it
+ * ========================================================================== */
+@Value
+public class UserProductivitySliceDTO {
+
+    /**
+     * Rows of this page in leaderboard order
+     */
+    List<UserProductivityDTO> users;
+
+    /**
+     * Opaque token for the following page, or null when there is none
+     */
+    String nextCursor;
+
+    /**
+     * Number of users on the leaderboard, or null when not requested
+     */
+    Long totalElements;
+}
@@ -0,0 +1,27 @@
+package com.demoproject.demo.pacmedproductivity;
+
+import lombok.Value;
+import java.util.List;
+
+/* ==========================================================================
+ * User Productivity Snapshot Data Transfer Object
+ * 
+ * PURPOSE: Full state of the per-user productivity stream at one version
+ * USAGE: First event on /api/user-productivity-stream and the body of
+ *        /api/user-productivity-snapshot when a client detects a gap
+ * 
+ * @note Deltas with baseVersion == version apply cleanly on top of this
+ * ========================================================================== */
+@Value
+public class UserProductivitySnapshotDTO {
+
+    /**
+     * Stream version this snapshot represents
+     */
+    long version;
+
+    /**
+     * Every user with submissions, in leaderboard order
+     */
+    List<UserProductivityDTO> users;
+}
@@ -0,0 +1,122 @@
+/* =============================================================================
+ * PAC Daily User Rollup Repository
+ * =============================================================================
+ * PURPOSE: Maintains and rebuilds the pac_daily_user_rollup summary table
+ * DEPENDENCIES: 
+ * - Spring Data JPA
+ * - PostgreSQL (ON CONFLICT upsert, native rebuild)
+ * 
+ * @note Reads against the rollup live in PacRepository next to the queries
+ *       they replaced
+ */
+package com.demoproject.demo.repository;
+
+import com.demoproject.demo.entity.PacDailyUserRollup;
+import com.demoproject.demo.entity.PacDailyUserRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface PacDailyUserRollupRepository extends JpaRepository<PacDailyUserRollup, PacDailyUserRollupId> {
+
+    /* -----------------------------------------------------------------------------
+     * Incremental Maintenance
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Adds signed counters to one rollup row, creating it if needed
+     * @param userId Owner of the PAC entry
+     * @param store Store of the PAC entry
+     * @param day Submission day
+     * @param submissions +1 for a submit, -1 for a delete
+     * @param pouches Signed pouches checked
+     * @param seconds Signed session duration
+     * @returns Rows affected
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO pac_daily_user_rollup (user_id, store, rollup_day, submissions, pouches_checked, total_seconds)
+        VALUES (:userId, :store, :day, :submissions, :pouches, :seconds)
+        ON CONFLICT (user_id, store, rollup_day) DO UPDATE SET
+            submissions = pac_daily_user_rollup.submissions + EXCLUDED.submissions,
+            pouches_checked = pac_daily_user_rollup.pouches_checked + EXCLUDED.pouches_checked,
+            total_seconds = pac_daily_user_rollup.total_seconds + EXCLUDED.total_seconds
+        """,
+        nativeQuery = true)
+    int applyDelta(@Param("userId") Long userId,
+                   @Param("store") String store,
+                   @Param("day") LocalDate day,
+                   @Param("submissions") long submissions,
+                   @Param("pouches") long pouches,
+                   @Param("seconds") long seconds);
+
+    /**
+     * Removes a rollup row once its last submission is deleted
+     * @returns Rows affected
+     */
+    @Modifying
+    @Query(value = """
+        DELETE FROM pac_daily_user_rollup
+        WHERE user_id = :userId AND store = :store AND rollup_day = :day AND submissions <= 0
+        """,
+        nativeQuery = true)
+    int deleteIfEmpty(@Param("userId") Long userId,
+                      @Param("store") String store,
+                      @Param("day") LocalDate day);
+
+    /**
+     * Removes every rollup row of a user about to be deleted
+     * @param userId User whose PAC rows go with the account
+     * @returns Rows affected
+     */
+    @Modifying
+    @Query(value = "DELETE FROM pac_daily_user_rollup WHERE user_id = :userId", nativeQuery = true)
+    int deleteByUserId(@Param("userId") Long userId);
+
+    /* -----------------------------------------------------------------------------
+     * Rebuild
+     * -------------------------------------------------------------------------- */
+
+    /**
+     * Blocks concurrent rollup writers until the rebuild commits
+     * @note Writers already in flight are waited for, so the rebuild sees their PAC rows
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE pac_daily_user_rollup IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    /**
+     * Empties the rollup inside the rebuild transaction
+     */
+    @Modifying
+    @Query(value = "DELETE FROM pac_daily_user_rollup", nativeQuery = true)
+    int deleteAllRows();
+
+    /**
+     * Re-aggregates every PAC row into the rollup
+     * @returns Rollup rows written
+     * @note Undated legacy rows are grouped under 1970-01-01 (PacDailyUserRollup.UNDATED)
+     * @note Each row's duration is floored to whole seconds before summing, as
+     *       PacChangeEvent does for incremental updates, so a rebuild reproduces them
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO pac_daily_user_rollup (user_id, store, rollup_day, submissions, pouches_checked, total_seconds)
+        SELECT
+            p.user_id,
+            p.store,
+            COALESCE(CAST(p.submission_date AS date), DATE '1970-01-01'),
+            COUNT(*),
+            COALESCE(SUM(p.pouches_checked), 0),
+            COALESCE(SUM(FLOOR(EXTRACT(EPOCH FROM (p.end_time - p.start_time)))), 0)
+        FROM pac p
+        GROUP BY p.user_id, p.store, COALESCE(CAST(p.submission_date AS date), DATE '1970-01-01')
+        """,
+        nativeQuery = true)
+    int insertFromPac();
+}
@@ -7,11 +7,16 @@
  * - Hibernate
  * - PostgreSQL (for native queries)
  * 
+ * @note Productivity aggregates read pac_daily_user_rollup (see
+ *       PacDailyUserRollup), so their cost scales with days x users
+ *       rather than with raw PAC rows
+ * 
  * @author DemoProject Team
  * @version 1.0
  */
 package com.demoproject.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -20,6 +25,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.demoproject.demo.entity.Pac;
+import com.demoproject.demo.pacmedproductivity.OverallProductivityProjection;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Repository
@@ -45,31 +52,169 @@ public interface PacRepository extends JpaRepository<Pac, Long> {
      * @param pageable Pagination parameters
      * @returns Page of metrics arrays: [username, submissions, pouches, avgTime, rate]
      * @note Uses native query for optimal performance
+     * @note avgTime is total seconds per pouch, matching ProductivityTotals
      */
     @Query(value = """
         SELECT 
             u.username,
-            COUNT(p.id) as totalSubmissions,
-            COALESCE(SUM(p.pouches_checked), 0) as totalPouchesChecked,
+            SUM(r.submissions) as totalSubmissions,
+            SUM(r.pouches_checked) as totalPouchesChecked,
             CASE 
-                WHEN COUNT(p.id) > 0 THEN 
-                    AVG(EXTRACT(EPOCH FROM (p.end_time - p.start_time))) / COUNT(p.id)
+                WHEN SUM(r.pouches_checked) > 0 THEN 
+                    CAST(SUM(r.total_seconds) AS double precision) / SUM(r.pouches_checked)
                 ELSE 0 
             END as avgTimePerPouch,
             CASE 
-                WHEN SUM(EXTRACT(EPOCH FROM (p.end_time - p.start_time))) > 0 THEN 
-                    (SUM(p.pouches_checked) * 3600.0) / SUM(EXTRACT(EPOCH FROM (p.end_time - p.start_time)))
+                WHEN SUM(r.total_seconds) > 0 THEN 
+                    (SUM(r.pouches_checked) * 3600.0) / SUM(r.total_seconds)
                 ELSE 0 
             END as avgPouchesPerHour
         FROM users u
-        INNER JOIN pac p ON p.user_id = u.id
+        INNER JOIN pac_daily_user_rollup r ON r.user_id = u.id
         GROUP BY u.username
         ORDER BY totalSubmissions DESC
         """,
-        countQuery = "SELECT COUNT(DISTINCT u.username) FROM users u INNER JOIN pac p ON p.user_id = u.id",
+        countQuery = "SELECT COUNT(DISTINCT r.user_id) FROM pac_daily_user_rollup r",
         nativeQuery = true)
     Page<Object[]> getUserProductivityDataPaginated(Pageable pageable);
 
+    /**
+     * Sums raw productivity counters per user
+     * @returns List of arrays: [username, submissions, pouches, totalSeconds]
+     * @note Seeds ProductivityAccumulator; averages are derived in memory
+     */
+    @Query(value = """
+        SELECT
+            u.username,
+            SUM(r.submissions) as totalSubmissions,
+            SUM(r.pouches_checked) as totalPouchesChecked,
+            SUM(r.total_seconds) as totalSeconds
+        FROM users u
+        INNER JOIN pac_daily_user_rollup r ON r.user_id = u.id
+        GROUP BY u.username
+        """,
+        nativeQuery = true)
+    List<Object[]> getUserProductivityTotals();
+
+    /**
+     * Counts submissions per user and (duration, pouches) pair
+     * @returns List of arrays: [username, seconds, pouches, count]
+     * @note Seeds ProductivityHistograms; values match PacChangeEvent's
+     *       whole-second duration and zero defaults
+     * @note Rows ending before they start or with negative pouches are skipped,
+     *       as SubmissionHistograms skips them when recording
+     */
+    @Query(value = """
+        SELECT
+            u.username,
+            COALESCE(FLOOR(EXTRACT(EPOCH FROM (p.end_time - p.start_time))), 0) as seconds,
+            COALESCE(p.pouches_checked, 0) as pouches,
+            COUNT(*) as submissions
+        FROM pac p
+        INNER JOIN users u ON u.id = p.user_id
+        WHERE (p.start_time IS NULL OR p.end_time IS NULL OR p.end_time >= p.start_time)
+          AND (p.pouches_checked IS NULL OR p.pouches_checked >= 0)
+        GROUP BY u.username, 2, 3
+        """,
+        nativeQuery = true)
+    List<Object[]> getSubmissionDistribution();
+
+    /**
+     * Sums raw productivity counters per store
+     * @returns List of arrays: [store, submissions, pouches, totalSeconds] ordered by store
+     */
+    @Query(value = """
+        SELECT
+            r.store,
+            SUM(r.submissions) as totalSubmissions,
+            SUM(r.pouches_checked) as totalPouchesChecked,
+            SUM(r.total_seconds) as totalSeconds
+        FROM pac_daily_user_rollup r
+        GROUP BY r.store
+        ORDER BY r.store
+        """,
+        nativeQuery = true)
+    List<Object[]> getStoreProductivityTotals();
+
+    /**
+     * Sums raw productivity counters per user within one store
+     * @param store Store name
+     * @returns List of arrays: [username, submissions, pouches, totalSeconds]
+     */
+    @Query(value = """
+        SELECT
+            u.username,
+            SUM(r.submissions) as totalSubmissions,
+            SUM(r.pouches_checked) as totalPouchesChecked,
+            SUM(r.total_seconds) as totalSeconds
+        FROM users u
+        INNER JOIN pac_daily_user_rollup r ON r.user_id = u.id
+        WHERE r.store = :store
+        GROUP BY u.username
+        """,
+        nativeQuery = true)
+    List<Object[]> getStoreUserProductivityTotals(@Param("store") String store);
+
+    /**
+     * Sums raw productivity counters for one keyset page of the leaderboard
+     * @param afterSubmissions Submissions of the last row already returned (Long.MAX_VALUE for the first page)
+     * @param afterUsername Username of the last row already returned ("" for the first page)
+     * @param limit Maximum rows to return
+     * @returns List of arrays: [username, submissions, pouches, totalSeconds]
+     * @note Seeks past the cursor instead of using OFFSET and needs no count query
+     * @note COLLATE "C" matches the Java ordering ProductivityAccumulator uses
+     */
+    @Query(value = """
+        SELECT
+            u.username,
+            SUM(r.submissions) as totalSubmissions,
+            SUM(r.pouches_checked) as totalPouchesChecked,
+            SUM(r.total_seconds) as totalSeconds
+        FROM users u
+        INNER JOIN pac_daily_user_rollup r ON r.user_id = u.id
+        GROUP BY u.username
+        HAVING SUM(r.submissions) < :afterSubmissions
+            OR (SUM(r.submissions) = :afterSubmissions AND u.username COLLATE "C" > :afterUsername)
+        ORDER BY SUM(r.submissions) DESC, u.username COLLATE "C" ASC
+        LIMIT :limit
+        """,
+        nativeQuery = true)
+    List<Object[]> getUserProductivityTotalsAfter(@Param("afterSubmissions") long afterSubmissions,
+                                                  @Param("afterUsername") String afterUsername,
+                                                  @Param("limit") int limit);
+
+    /**
+     * Counts users with at least one PAC entry
+     * @returns Number of leaderboard rows
+     */
+    @Query(value = "SELECT COUNT(DISTINCT r.user_id) FROM pac_daily_user_rollup r", nativeQuery = true)
+    long countProductiveUsers();
+
+    /**
+     * Calculates overall totals and weighted averages in one statement
+     * @returns Single-row projection of overall productivity
+     * @note Aliases are quoted so PostgreSQL keeps the projection's casing
+     */
+    @Query(value = """
+        SELECT
+            COALESCE(SUM(r.submissions), 0) as "totalSubmissions",
+            COALESCE(SUM(r.pouches_checked), 0) as "totalPouchesChecked",
+            COALESCE(SUM(r.total_seconds), 0) as "totalSeconds",
+            CASE
+                WHEN SUM(r.pouches_checked) > 0 THEN
+                    CAST(SUM(r.total_seconds) AS double precision) / SUM(r.pouches_checked)
+                ELSE 0
+            END as "avgTimePerPouch",
+            CASE
+                WHEN SUM(r.total_seconds) > 0 THEN
+                    (SUM(r.pouches_checked) * 3600.0) / SUM(r.total_seconds)
+                ELSE 0
+            END as "avgPouchesPerHour"
+        FROM pac_daily_user_rollup r
+        """,
+        nativeQuery = true)
+    OverallProductivityProjection getOverallProductivityTotals();
+
     /* -----------------------------------------------------------------------------
      * Filtered Queries
      * -------------------------------------------------------------------------- */
@@ -116,45 +261,122 @@ public interface PacRepository extends JpaRepository<Pac, Long> {
      * @returns List of metric arrays: [username, count, pouches, avgTime, rate]
      * @note Uses JPQL for database agnostic implementation
      */
-    @Query("SELECT p.user.username, " +
-           "COUNT(p), " +
-           "COALESCE(SUM(p.pouchesChecked), 0), " +
-           "CASE WHEN SUM(p.pouchesChecked) > 0 " +
-           "     THEN CAST(SUM(FUNCTION('TIMESTAMPDIFF', SECOND, p.startTime, p.endTime)) AS double) / SUM(p.pouchesChecked) " +
+    @Query("SELECT u.username, " +
+           "SUM(r.submissions), " +
+           "SUM(r.pouchesChecked), " +
+           "CASE WHEN SUM(r.pouchesChecked) > 0 " +
+           "     THEN CAST(SUM(r.totalSeconds) AS double) / SUM(r.pouchesChecked) " +
            "     ELSE 0.0 END, " +
-           "CASE WHEN SUM(FUNCTION('TIMESTAMPDIFF', HOUR, p.startTime, p.endTime)) > 0 " +
-           "     THEN CAST(SUM(p.pouchesChecked) AS double) / SUM(FUNCTION('TIMESTAMPDIFF', HOUR, p.startTime, p.endTime)) " +
+           "CASE WHEN SUM(r.totalSeconds) > 0 " +
+           "     THEN SUM(r.pouchesChecked) * 3600.0 / SUM(r.totalSeconds) " +
            "     ELSE 0.0 END " +
-           "FROM Pac p " +
-           "GROUP BY p.user.username")
+           "FROM PacDailyUserRollup r JOIN User u ON u.id = r.id.userId " +
+           "GROUP BY u.username")
     List<Object[]> getUserProductivityData();
 
     /**
-     * Retrieves daily pouch check counts for date range
-     * @param startDate Range start (inclusive)
-     * @param endDate Range end (inclusive)
-     * @returns List of arrays: [date, count]
+     * Retrieves a dense hourly series straight from pac
+     * @param start First bucket start (whole hour)
+     * @param end Exclusive end of the last bucket
+     * @param userId User filter, 0 for all users
+     * @param store Store filter, empty for all stores
+     * @returns Arrays [bucketStart, submissions, pouches, totalSeconds], one per hour
+     * @note Empty hours come from generate_series, so no gaps are filled in Java
      */
-    @Query("SELECT DATE(p.submissionDate) as date, COUNT(p) as count " +
-           "FROM Pac p " +
-           "WHERE p.submissionDate >= :startDate AND p.submissionDate <= :endDate " +
-           "GROUP BY DATE(p.submissionDate) " +
-           "ORDER BY DATE(p.submissionDate)")
-    List<Object[]> getPouchesCheckedLast7Days(
-        @Param("startDate") LocalDateTime startDate, 
-        @Param("endDate") LocalDateTime endDate);
+    @Query(value = """
+        WITH totals AS (
+            SELECT
+                date_trunc('hour', p.submission_date) AS bucket,
+                COUNT(*) AS submissions,
+                COALESCE(SUM(p.pouches_checked), 0) AS pouches_checked,
+                COALESCE(SUM(FLOOR(EXTRACT(EPOCH FROM (p.end_time - p.start_time)))), 0) AS total_seconds
+            FROM pac p
+            WHERE p.submission_date >= :start AND p.submission_date < :end
+              AND (:userId = 0 OR p.user_id = :userId)
+              AND (:store = '' OR p.store = :store)
+            GROUP BY 1
+        )
+        SELECT
+            s.bucket,
+            COALESCE(t.submissions, 0),
+            COALESCE(t.pouches_checked, 0),
+            COALESCE(t.total_seconds, 0)
+        FROM generate_series(CAST(:start AS timestamp), CAST(:end AS timestamp) - INTERVAL '1 hour', INTERVAL '1 hour') AS s(bucket)
+        LEFT JOIN totals t ON t.bucket = s.bucket
+        ORDER BY s.bucket
+        """,
+        nativeQuery = true)
+    List<Object[]> getHourlyProductivitySeries(
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end,
+        @Param("userId") long userId,
+        @Param("store") String store);
+
+    /**
+     * Retrieves a dense daily or weekly series from pac_daily_user_rollup
+     * @param startDay First bucket start
+     * @param endDay Exclusive end of the last bucket
+     * @param unit date_trunc field ("day" or "week")
+     * @param step Bucket width as an interval literal ("1 day" or "1 week")
+     * @param userId User filter, 0 for all users
+     * @param store Store filter, empty for all stores
+     * @returns Arrays [bucketStart, submissions, pouches, totalSeconds], one per bucket
+     * @note Reads at most days x users x stores rollup rows, never raw PAC rows
+     */
+    @Query(value = """
+        WITH totals AS (
+            SELECT
+                date_trunc(:unit, CAST(r.rollup_day AS timestamp)) AS bucket,
+                SUM(r.submissions) AS submissions,
+                SUM(r.pouches_checked) AS pouches_checked,
+                SUM(r.total_seconds) AS total_seconds
+            FROM pac_daily_user_rollup r
+            WHERE r.rollup_day >= :startDay AND r.rollup_day < :endDay
+              AND (:userId = 0 OR r.user_id = :userId)
+              AND (:store = '' OR r.store = :store)
+            GROUP BY 1
+        )
+        SELECT
+            s.bucket,
+            COALESCE(t.submissions, 0),
+            COALESCE(t.pouches_checked, 0),
+            COALESCE(t.total_seconds, 0)
+        FROM generate_series(CAST(:startDay AS timestamp), CAST(:endDay AS timestamp) - CAST(:step AS interval), CAST(:step AS interval)) AS s(bucket)
+        LEFT JOIN totals t ON t.bucket = s.bucket
+        ORDER BY s.bucket
+        """,
+        nativeQuery = true)
+    List<Object[]> getRollupProductivitySeries(
+        @Param("startDay") LocalDate startDay,
+        @Param("endDay") LocalDate endDay,
+        @Param("unit") String unit,
+        @Param("step") String step,
+        @Param("userId") long userId,
+        @Param("store") String store);
 
     /* -----------------------------------------------------------------------------
-     * User Existence Checks
+     * Request Key Checks
      * -------------------------------------------------------------------------- */
 
     /**
-     * Checks if a user has any PAC entries
-     * @param username Username to check
-     * @returns True if user exists with PAC entries
+     * Checks whether a user's submission with this request key is stored
+     * @param userId Submitting user
+     * @param requestKey Client Idempotency-Key
+     * @returns True if the submission was already committed
+     * @note Filters on pac.user_id, so no users join is needed
+     */
+    @Query("SELECT COUNT(p) > 0 FROM Pac p WHERE p.user.id = :userId AND p.requestKey = :requestKey")
+    boolean existsByUserIdAndRequestKey(@Param("userId") Long userId,
+                                        @Param("requestKey") String requestKey);
+
+    /**
+     * Finds which of a batch's request keys are already stored
+     * @param requestKeys Keys in the batch
+     * @returns [userId, requestKey] for every stored match
+     * @note Keys are unique per user, so callers match on both columns
      */
-    @Query("SELECT COUNT(p) > 0 FROM Pac p WHERE p.user.username = :username")
-    boolean existsByUsername(@Param("username") String username);
+    @Query("SELECT p.user.id, p.requestKey FROM Pac p WHERE p.requestKey IN :requestKeys")
+    List<Object[]> findStoredRequestKeys(@Param("requestKeys") Collection<String> requestKeys);
 
     /* -----------------------------------------------------------------------------
      * User Productivity Metrics
@@ -167,11 +389,11 @@ public interface PacRepository extends JpaRepository<Pac, Long> {
      */
     @Query("""
         SELECT 
-            COUNT(p) as totalSubmissions,
-            COALESCE(SUM(p.pouchesChecked), 0) as totalPouchesChecked,
-            COALESCE(SUM(FUNCTION('TIMESTAMPDIFF', SECOND, p.startTime, p.endTime)), 0) as totalSeconds
-        FROM Pac p 
-        WHERE p.user.username = :username
+            COALESCE(SUM(r.submissions), 0) as totalSubmissions,
+            COALESCE(SUM(r.pouchesChecked), 0) as totalPouchesChecked,
+            COALESCE(SUM(r.totalSeconds), 0) as totalSeconds
+        FROM PacDailyUserRollup r
+        WHERE r.id.userId = (SELECT u.id FROM User u WHERE u.username = :username)
         """)
     Object[] getUserProductivityMetrics(@Param("username") String username);
 
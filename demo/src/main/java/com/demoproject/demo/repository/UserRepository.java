@@ -16,6 +16,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import com.demoproject.demo.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,6 +36,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @performance Indexed lookup, O(1) expected
      */
     Optional<User> findByUsername(String username);
+
+    /**
+     * Finds every user whose username is in the given set
+     * 
+     * @param usernames Target usernames (case-sensitive)
+     * @returns List<User> - Missing usernames are simply absent
+     * @performance One IN query instead of a lookup per username
+     */
+    List<User> findByUsernameIn(Collection<String> usernames);
     
     /* -----------------------------------------------------------------------------
      * Aggregate Queries
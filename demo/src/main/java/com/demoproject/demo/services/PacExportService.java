@@ -0,0 +1,297 @@
+/* =================================================================
+ * PAC Export Service
+ *
+ * PURPOSE: Streams filtered PAC responses as CSV or NDJSON
+ *
+ * CORE FUNCTIONALITY:
+ * - Same nameFilter/store/month filters as getAllPacsWithFilters
+ * - Reads through a forward-only JDBC cursor, fetchSize rows at a time
+ * - Writes each row straight to the output as it is read
+ *
+ * DEPENDENCIES:
+ * - JdbcTemplate (cursor query, no entities or persistence context)
+ * - Jackson (NDJSON rows via a streaming generator)
+ *
+ * IMPORTANT NOTES:
+ * - Heap use is bounded by one fetch, whatever the row count
+ * - PostgreSQL only honours fetchSize inside a transaction, so the
+ *   export runs in a read-only transaction
+ * ================================================================= */
+package com.demoproject.demo.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@Service
+public class PacExportService {
+    private static final Logger logger = LoggerFactory.getLogger(PacExportService.class);
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    private static final String[] COLUMNS =
+        {"id", "username", "store", "submission_date", "start_time", "end_time", "pouches_checked"};
+
+    /**
+     * Output formats, with their content types and file extensions.
+     */
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @param value Format name, case-insensitive
+         * @throws IllegalArgumentException Unknown format
+         */
+        public static Format parse(String value) {
+            return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param jdbcTemplate Shared template; a cursor-configured copy is made from it
+     * @param transactionManager Read-only transaction the cursor runs in
+     * @param objectMapper JSON factory for NDJSON rows
+     * @param fetchSize Rows fetched per cursor round trip
+     */
+    public PacExportService(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            ObjectMapper objectMapper,
+                            @Value("${pac.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /* ===== Export ===== */
+
+    /**
+     * Writes every matching PAC response, newest first.
+     *
+     * @param out Destination, left open for the caller to close
+     * @param format CSV (with header row) or NDJSON (one object per line)
+     * @param nameFilter Optional username filter (partial, case-insensitive)
+     * @param store Optional store identifier
+     * @param month Optional submission month (1-12)
+     * @returns Number of rows written
+     * @throws UncheckedIOException The client went away or the stream failed
+     */
+    public long export(OutputStream out, Format format, String nameFilter, String store, Integer month) {
+        List<Object> params = new ArrayList<>();
+        String sql = buildQuery(nameFilter, store, month, params);
+        long start = System.currentTimeMillis();
+
+        Long rows = transactionTemplate.execute(status -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_BYTES);
+            try {
+                RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+                rowWriter.start();
+                jdbcTemplate.query(sql, (RowCallbackHandler) rowWriter::write, params.toArray());
+                rowWriter.finish();
+                writer.flush();
+                return rowWriter.count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        logger.info("Exported {} PAC rows as {} in {}ms", rows, format, System.currentTimeMillis() - start);
+        return rows != null ? rows : 0L;
+    }
+
+    /**
+     * Builds the export query with only the filters that are set.
+     *
+     * @note Mirrors PacRepository.findAllWithFilters
+     */
+    private static String buildQuery(String nameFilter, String store, Integer month, List<Object> params) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT p.id, u.username, p.store, p.submission_date, p.start_time, p.end_time, p.pouches_checked
+            FROM pac p JOIN users u ON u.id = p.user_id
+            WHERE 1 = 1
+            """);
+        if (nameFilter != null && !nameFilter.isEmpty()) {
+            sql.append(" AND LOWER(u.username) LIKE ?");
+            params.add("%" + nameFilter.toLowerCase(Locale.ROOT) + "%");
+        }
+        if (store != null && !store.isEmpty()) {
+            sql.append(" AND p.store = ?");
+            params.add(store);
+        }
+        if (month != null) {
+            sql.append(" AND EXTRACT(MONTH FROM p.submission_date) = ?");
+            params.add(month);
+        }
+        sql.append(" ORDER BY p.submission_date DESC, p.id DESC");
+        return sql.toString();
+    }
+
+    /* ===== Row Writers ===== */
+
+    private abstract static class RowWriter {
+        final Writer writer;
+        long count;
+
+        RowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        void start() throws IOException {
+        }
+
+        void finish() throws IOException {
+        }
+
+        void write(ResultSet rs) throws SQLException {
+            try {
+                writeRow(rs);
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        abstract void writeRow(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private static final class CsvRowWriter extends RowWriter {
+        CsvRowWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void start() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+
+        @Override
+        void writeRow(ResultSet rs) throws SQLException, IOException {
+            writer.write(Long.toString(rs.getLong(1)));
+            writer.write(',');
+            writer.write(quote(rs.getString(2)));
+            writer.write(',');
+            writer.write(quote(rs.getString(3)));
+            writer.write(',');
+            writer.write(text(rs.getTimestamp(4)));
+            writer.write(',');
+            writer.write(text(rs.getTime(5)));
+            writer.write(',');
+            writer.write(text(rs.getTime(6)));
+            writer.write(',');
+            int pouches = rs.getInt(7);
+            writer.write(rs.wasNull() ? "" : Integer.toString(pouches));
+            writer.write('\n');
+        }
+
+        private static String quote(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private final class NdjsonRowWriter extends RowWriter {
+        private JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void start() throws IOException {
+            generator = objectMapper.getFactory().createGenerator(writer);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        void finish() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        void writeRow(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField(COLUMNS[0], rs.getLong(1));
+            generator.writeStringField(COLUMNS[1], rs.getString(2));
+            generator.writeStringField(COLUMNS[2], rs.getString(3));
+            writeNullableString(COLUMNS[3], rs.getTimestamp(4));
+            writeNullableString(COLUMNS[4], rs.getTime(5));
+            writeNullableString(COLUMNS[5], rs.getTime(6));
+            int pouches = rs.getInt(7);
+            if (rs.wasNull()) {
+                generator.writeNullField(COLUMNS[6]);
+            } else {
+                generator.writeNumberField(COLUMNS[6], pouches);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeNullableString(String field, Object value) throws IOException {
+            if (value == null) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeStringField(field, text(value));
+            }
+        }
+    }
+
+    /**
+     * @returns ISO-8601 text for SQL temporal values, empty for null
+     */
+    private static String text(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof Time time) {
+            return time.toLocalTime().toString();
+        }
+        return value != null ? value.toString() : "";
+    }
+}
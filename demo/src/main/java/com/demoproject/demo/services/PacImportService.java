@@ -0,0 +1,490 @@
+/* =================================================================
+ * PAC Bulk Import Service
+ *
+ * PURPOSE: Loads large CSV backfills of PAC rows through PostgreSQL COPY
+ *
+ * CORE FUNCTIONALITY:
+ * - Streams the CSV line by line and validates each row with the
+ *   same rules as PacService.validatePac
+ * - COPYs valid rows into a temp staging table in fixed-size chunks,
+ *   then moves each chunk into pac and the daily rollup in one commit
+ * - Writes rejected rows to a per-import error report on disk
+ * - Refreshes productivity totals, histograms and caches once at the end
+ *
+ * DEPENDENCIES:
+ * - DataSource (PGConnection/CopyManager, one pooled connection per chunk)
+ * - UserRepository (username to user id, loaded once per import)
+ * - ProductivityRefresher (reseeds this node and the others after the import)
+ *
+ * IMPORTANT NOTES:
+ * - Memory use is bounded by one chunk, so file size does not matter
+ * - A chunk the database rejects rolls back on its own; earlier chunks
+ *   stay committed and the chunk's line range is reported as failed
+ * - Imported rows do not publish PacChangeEvent; the final refresh
+ *   replaces the per-row updates
+ * - Only one import runs at a time
+ * ================================================================= */
+package com.demoproject.demo.services;
+
+import com.demoproject.demo.dto.PacImportStatusDTO;
+import com.demoproject.demo.entity.Pac;
+import com.demoproject.demo.entity.User;
+import com.demoproject.demo.pacmedproductivity.ProductivityRefresher;
+import com.demoproject.demo.repository.UserRepository;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+@Service
+public class PacImportService {
+    private static final Logger logger = LoggerFactory.getLogger(PacImportService.class);
+    private static final int RETAINED_JOBS = 20;
+
+    /* ===== SQL ===== */
+
+    private static final String CREATE_STAGING_SQL = """
+        CREATE TEMP TABLE pac_import_staging (
+            user_id BIGINT NOT NULL,
+            store VARCHAR(255) NOT NULL,
+            submission_date TIMESTAMP NOT NULL,
+            start_time TIME NOT NULL,
+            end_time TIME NOT NULL,
+            pouches_checked INTEGER NOT NULL
+        ) ON COMMIT DROP
+        """;
+
+    private static final String COPY_SQL =
+        "COPY pac_import_staging (user_id, store, submission_date, start_time, end_time, pouches_checked) "
+            + "FROM STDIN WITH (FORMAT csv)";
+
+    private static final String INSERT_PAC_SQL = """
+        INSERT INTO pac (id, user_id, store, submission_date, start_time, end_time, pouches_checked)
+        SELECT nextval('pac_id_seq'), user_id, store, submission_date, start_time, end_time, pouches_checked
+        FROM pac_import_staging
+        """;
+
+    private static final String APPLY_ROLLUP_SQL = """
+        INSERT INTO pac_daily_user_rollup (user_id, store, rollup_day, submissions, pouches_checked, total_seconds)
+        SELECT
+            s.user_id,
+            s.store,
+            CAST(s.submission_date AS date),
+            COUNT(*),
+            COALESCE(SUM(s.pouches_checked), 0),
+            COALESCE(SUM(FLOOR(EXTRACT(EPOCH FROM (s.end_time - s.start_time)))), 0)
+        FROM pac_import_staging s
+        GROUP BY s.user_id, s.store, CAST(s.submission_date AS date)
+        ON CONFLICT (user_id, store, rollup_day) DO UPDATE SET
+            submissions = pac_daily_user_rollup.submissions + EXCLUDED.submissions,
+            pouches_checked = pac_daily_user_rollup.pouches_checked + EXCLUDED.pouches_checked,
+            total_seconds = pac_daily_user_rollup.total_seconds + EXCLUDED.total_seconds
+        """;
+
+    /* ===== CSV Layout ===== */
+
+    private static final String COL_USERNAME = "username";
+    private static final String COL_STORE = "store";
+    private static final String COL_SUBMISSION_DATE = "submission_date";
+    private static final String COL_START_TIME = "start_time";
+    private static final String COL_END_TIME = "end_time";
+    private static final String COL_POUCHES = "pouches_checked";
+    public static final List<String> REQUIRED_COLUMNS =
+        List.of(COL_USERNAME, COL_STORE, COL_START_TIME, COL_END_TIME, COL_POUCHES);
+
+    private final DataSource dataSource;
+    private final UserRepository userRepository;
+    private final PacService pacService;
+    private final ProductivityRefresher productivityRefresher;
+    private final int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>();
+
+    /**
+     * @param dataSource Pool the COPY connections are taken from
+     * @param userRepository Username resolution
+     * @param pacService Shared PAC validation rules
+     * @param productivityRefresher Totals, percentiles, caches and streams reseeded after an import
+     * @param chunkSize Rows per COPY and commit
+     */
+    public PacImportService(DataSource dataSource,
+                            UserRepository userRepository,
+                            PacService pacService,
+                            ProductivityRefresher productivityRefresher,
+                            @Value("${pac.import.chunk-size:5000}") int chunkSize) {
+        this.dataSource = dataSource;
+        this.userRepository = userRepository;
+        this.pacService = pacService;
+        this.productivityRefresher = productivityRefresher;
+        this.chunkSize = chunkSize;
+    }
+
+    /* ===== Import ===== */
+
+    /**
+     * Imports a CSV stream of PAC rows.
+     *
+     * @param csv UTF-8 CSV with a header row; columns are matched by name
+     *            (username, store, start_time, end_time, pouches_checked,
+     *            and optionally submission_date)
+     * @returns Final status of the import
+     * @throws IllegalStateException Another import is running
+     * @throws IllegalArgumentException Missing header or required columns
+     * @throws IOException Reading the upload or writing the error report failed
+     * @note Rows without a submission_date are stamped with the import's start time,
+     *       as a live submission would be
+     */
+    public PacImportStatusDTO importCsv(InputStream csv) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Another PAC import is already running");
+        }
+        ImportJob job = null;
+        try {
+            job = register(new ImportJob(Files.createTempFile("pac-import-", "-errors.csv")));
+            logger.info("PAC import {} started", job.id);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+                 BufferedWriter errors = Files.newBufferedWriter(job.errorReport, StandardCharsets.UTF_8)) {
+                errors.write("line,error");
+                errors.newLine();
+                load(job, reader, errors);
+            }
+            job.finish(PacImportStatusDTO.Status.COMPLETED, null);
+            logger.info("PAC import {} completed: {} imported, {} rejected",
+                job.id, job.rowsImported, job.rowsRejected);
+        } catch (IllegalArgumentException | IOException e) {
+            if (job != null) {
+                job.finish(PacImportStatusDTO.Status.FAILED, e.getMessage());
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            logger.error("PAC import failed", e);
+            if (job != null) {
+                job.finish(PacImportStatusDTO.Status.FAILED, e.getMessage());
+            }
+            throw e;
+        } finally {
+            try {
+                if (job != null && job.rowsImported > 0) {
+                    refreshProductivity();
+                }
+            } finally {
+                running.set(false);
+            }
+        }
+        return job.toStatus();
+    }
+
+    private void load(ImportJob job, BufferedReader reader, BufferedWriter errors) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV is empty");
+        }
+        Map<String, Integer> columns = indexColumns(splitCsvLine(header));
+        Map<String, Long> userIds = userRepository.findAll().stream()
+            .collect(Collectors.toMap(User::getUsername, User::getId));
+        LocalDateTime importedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        StringBuilder chunk = new StringBuilder();
+        int chunkRows = 0;
+        long chunkFirstLine = 0;
+        long lineNumber = 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            job.rowsRead++;
+            String row;
+            try {
+                row = toStagingRow(splitCsvLine(line), columns, userIds, importedAt);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                job.rowsRejected++;
+                writeError(errors, Long.toString(lineNumber), e.getMessage());
+                continue;
+            }
+            if (chunkRows == 0) {
+                chunkFirstLine = lineNumber;
+            }
+            chunk.append(row).append('\n');
+            if (++chunkRows == chunkSize) {
+                copyChunk(job, chunk, chunkRows, chunkFirstLine, lineNumber, errors);
+                chunk.setLength(0);
+                chunkRows = 0;
+            }
+        }
+        if (chunkRows > 0) {
+            copyChunk(job, chunk, chunkRows, chunkFirstLine, lineNumber, errors);
+        }
+    }
+
+    /**
+     * Loads one chunk through the staging table and commits it.
+     */
+    private void copyChunk(ImportJob job, StringBuilder chunk, int rows, long firstLine, long lastLine,
+                           BufferedWriter errors) throws IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING_SQL);
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                copyManager.copyIn(COPY_SQL, new StringReader(chunk.toString()));
+                statement.executeUpdate(INSERT_PAC_SQL);
+                statement.executeUpdate(APPLY_ROLLUP_SQL);
+                connection.commit();
+                job.rowsImported += rows;
+                job.chunksCommitted++;
+            } catch (SQLException e) {
+                connection.rollback();
+                job.rowsRejected += rows;
+                logger.warn("PAC import {} chunk at lines {}-{} failed", job.id, firstLine, lastLine, e);
+                writeError(errors, firstLine + "-" + lastLine, "Chunk rejected by database: " + e.getMessage());
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("PAC import chunk at lines " + firstLine + "-" + lastLine
+                + " could not be loaded or rolled back", e);
+        }
+    }
+
+    /**
+     * Reseeds everything derived from pac after the bulk load.
+     *
+     * @note Mirrors the admin rollup rebuild; the rollup itself was kept
+     *       in step chunk by chunk
+     */
+    private void refreshProductivity() {
+        productivityRefresher.refresh();
+    }
+
+    /* ===== Row Handling ===== */
+
+    static Map<String, Integer> indexColumns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("CSV header is missing columns: " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    /**
+     * Validates one CSV row and renders it as a staging row.
+     *
+     * @throws IllegalArgumentException Unknown user or invalid PAC data
+     * @throws DateTimeParseException Unparseable date or time
+     * @note Fields missing from a short row count as empty
+     */
+    String toStagingRow(List<String> fields, Map<String, Integer> columns,
+                                Map<String, Long> userIds, LocalDateTime importedAt) {
+        String username = field(fields, columns, COL_USERNAME);
+        Long userId = username != null ? userIds.get(username) : null;
+        if (userId == null) {
+            throw new IllegalArgumentException("Unknown user: " + username);
+        }
+
+        Pac pac = new Pac();
+        pac.setStore(field(fields, columns, COL_STORE));
+        String startTime = field(fields, columns, COL_START_TIME);
+        String endTime = field(fields, columns, COL_END_TIME);
+        String pouches = field(fields, columns, COL_POUCHES);
+        pac.setStartTime(startTime != null ? LocalTime.parse(startTime) : null);
+        pac.setEndTime(endTime != null ? LocalTime.parse(endTime) : null);
+        try {
+            pac.setPouchesChecked(pouches != null ? Integer.valueOf(pouches) : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid pouches_checked: " + pouches);
+        }
+        pacService.validatePac(pac);
+
+        String submissionDate = field(fields, columns, COL_SUBMISSION_DATE);
+        LocalDateTime submittedAt = submissionDate != null ? parseSubmissionDate(submissionDate) : importedAt;
+
+        return userId + "," + quote(pac.getStore()) + "," + submittedAt + ","
+            + pac.getStartTime() + "," + pac.getEndTime() + "," + pac.getPouchesChecked();
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * @param value ISO date, or date and time separated by 'T' or a space
+     * @returns Start of day for a date alone, otherwise truncated to seconds
+     */
+    static LocalDateTime parseSubmissionDate(String value) {
+        if (value.length() <= 10) {
+            return LocalDate.parse(value).atStartOfDay();
+        }
+        return LocalDateTime.parse(value.replace(' ', 'T')).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * Splits one CSV line, honouring double-quoted fields.
+     *
+     * @note Quoted fields may contain commas and doubled quotes, not line breaks
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void writeError(BufferedWriter errors, String lines, String message) throws IOException {
+        errors.write(lines + "," + quote(message != null ? message : "Invalid row"));
+        errors.newLine();
+    }
+
+    /* ===== Job Tracking ===== */
+
+    /**
+     * @returns Status of recent imports, newest first
+     */
+    public List<PacImportStatusDTO> getRecentImports() {
+        synchronized (jobs) {
+            List<PacImportStatusDTO> statuses = new ArrayList<>(jobs.size());
+            jobs.values().forEach(job -> statuses.add(0, job.toStatus()));
+            return statuses;
+        }
+    }
+
+    /**
+     * @param id Import identifier
+     * @returns Live status of the import, empty if unknown or expired
+     */
+    public Optional<PacImportStatusDTO> getImport(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id)).map(ImportJob::toStatus);
+        }
+    }
+
+    /**
+     * @param id Import identifier
+     * @returns Path of the import's error report (CSV of line, error)
+     */
+    public Optional<Path> getErrorReport(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id)).map(job -> job.errorReport);
+        }
+    }
+
+    private ImportJob register(ImportJob job) {
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            var oldest = jobs.entrySet().iterator();
+            while (jobs.size() > RETAINED_JOBS && oldest.hasNext()) {
+                ImportJob expired = oldest.next().getValue();
+                oldest.remove();
+                try {
+                    Files.deleteIfExists(expired.errorReport);
+                } catch (IOException e) {
+                    logger.warn("Could not delete PAC import error report {}", expired.errorReport, e);
+                }
+            }
+        }
+        return job;
+    }
+
+    /**
+     * Progress of one import.
+     *
+     * @note Counters are written only by the importing thread; volatile keeps
+     *       status reads from other requests current
+     */
+    private static final class ImportJob {
+        final String id = UUID.randomUUID().toString();
+        final Path errorReport;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        volatile PacImportStatusDTO.Status status = PacImportStatusDTO.Status.RUNNING;
+        volatile LocalDateTime finishedAt;
+        volatile long rowsRead;
+        volatile long rowsImported;
+        volatile long rowsRejected;
+        volatile long chunksCommitted;
+        volatile String message;
+
+        ImportJob(Path errorReport) {
+            this.errorReport = errorReport;
+        }
+
+        void finish(PacImportStatusDTO.Status status, String message) {
+            this.message = message;
+            this.finishedAt = LocalDateTime.now();
+            this.status = status;
+        }
+
+        PacImportStatusDTO toStatus() {
+            return new PacImportStatusDTO(id, status, startedAt, finishedAt,
+                rowsRead, rowsImported, rowsRejected, chunksCommitted, message);
+        }
+    }
+}
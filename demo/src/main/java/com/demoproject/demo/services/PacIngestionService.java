@@ -0,0 +1,257 @@
+/* =================================================================
+ * PAC Ingestion Service
+ *
+ * PURPOSE: Optional write-behind path that persists PAC submissions
+ *          in batches instead of one transaction per request
+ *
+ * CORE FUNCTIONALITY:
+ * - Validates and queues submissions in a bounded in-process queue
+ * - Flushes on batch size or after a short linger, whichever comes first
+ * - Completes each caller's future only after its batch commits
+ *
+ * DEPENDENCIES:
+ * - PacService (batch transaction, rollup and change events)
+ * - UserRepository (one IN lookup per batch)
+ * - Micrometer (queue depth, batch size, flush time, rejections)
+ *
+ * IMPORTANT NOTES:
+ * - Enabled with pac.ingest.batch.enabled=true; otherwise submitPac is used
+ * - A full queue rejects immediately (RejectedExecutionException) so
+ *   callers can answer 503 instead of piling up request threads
+ * - If a batch fails it is retried entry by entry, so one bad row
+ *   cannot fail its neighbours
+ * ================================================================= */
+package com.demoproject.demo.services;
+
+import com.demoproject.demo.entity.Pac;
+import com.demoproject.demo.entity.User;
+import com.demoproject.demo.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@ConditionalOnProperty(name = "pac.ingest.batch.enabled", havingValue = "true")
+public class PacIngestionService {
+    private static final Logger logger = LoggerFactory.getLogger(PacIngestionService.class);
+    private static final long IDLE_POLL_MILLIS = 500;
+
+    private final PacService pacService;
+    private final UserRepository userRepository;
+    private final BlockingQueue<PendingSubmission> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final Thread flusher;
+    private volatile boolean accepting = true;
+
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer flushTimer;
+
+    /**
+     * @param pacService Batch persistence
+     * @param userRepository Username resolution
+     * @param meterRegistry Metrics registry
+     * @param queueCapacity Submissions that may wait before callers are rejected
+     * @param batchSize Largest batch written in one transaction
+     * @param lingerMillis Longest time the first entry of a batch waits for company
+     */
+    public PacIngestionService(PacService pacService,
+                               UserRepository userRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${pac.ingest.queue-capacity:10000}") int queueCapacity,
+                               @Value("${pac.ingest.batch-size:200}") int batchSize,
+                               @Value("${pac.ingest.linger-ms:25}") long lingerMillis) {
+        this.pacService = pacService;
+        this.userRepository = userRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.flusher = new Thread(this::run, "pac-ingest-flusher");
+        this.flusher.setDaemon(true);
+
+        this.rejectedCounter = meterRegistry.counter("pac.ingest.rejected");
+        this.failedCounter = meterRegistry.counter("pac.ingest.failed");
+        this.batchSizeSummary = DistributionSummary.builder("pac.ingest.batch.size").register(meterRegistry);
+        this.flushTimer = Timer.builder("pac.ingest.flush").register(meterRegistry);
+        Gauge.builder("pac.ingest.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    /**
+     * Starts flushing once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        flusher.start();
+        logger.info("PAC write-behind ingestion started (batch size {}, linger {}ms, capacity {})",
+            batchSize, TimeUnit.NANOSECONDS.toMillis(lingerNanos), queue.remainingCapacity());
+    }
+
+    /* ===== Submission ===== */
+
+    /**
+     * Validates and queues one submission.
+     *
+     * @param pac Entry without its user
+     * @param username Submitting user
+     * @returns Future completed once the entry's batch has committed
+     * @throws IllegalArgumentException Invalid PAC data
+     * @throws RejectedExecutionException Queue is full or shutting down
+     */
+    public CompletableFuture<Void> submit(Pac pac, String username) {
+        pacService.validatePac(pac);
+        if (!accepting) {
+            throw new RejectedExecutionException("PAC ingestion is shutting down");
+        }
+        PendingSubmission pending = new PendingSubmission(pac, username, new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            rejectedCounter.increment();
+            throw new RejectedExecutionException("PAC ingestion queue is full");
+        }
+        // Shutdown may have begun after the check; take the entry back unless someone will answer it
+        if (!accepting && queue.remove(pending)) {
+            throw new RejectedExecutionException("PAC ingestion is shutting down");
+        }
+        return pending.ack();
+    }
+
+    /* ===== Flushing ===== */
+
+    private void run() {
+        List<PendingSubmission> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                PendingSubmission first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingSubmission next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flushTimer.record(() -> flush(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.ack().completeExceptionally(e));
+                break;
+            } catch (Exception e) {
+                logger.error("Unexpected PAC ingestion failure", e);
+                batch.forEach(pending -> pending.ack().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        logger.info("PAC write-behind ingestion stopped");
+    }
+
+    /**
+     * Persists one batch and answers every caller in it.
+     *
+     * @param batch Queued submissions
+     */
+    private void flush(List<PendingSubmission> batch) {
+        batchSizeSummary.record(batch.size());
+        Set<String> usernames = batch.stream().map(PendingSubmission::username).collect(Collectors.toSet());
+        Map<String, User> users = userRepository.findByUsernameIn(usernames).stream()
+            .collect(Collectors.toMap(User::getUsername, Function.identity()));
+
+        List<PendingSubmission> resolved = new ArrayList<>(batch.size());
+        for (PendingSubmission pending : batch) {
+            User user = users.get(pending.username());
+            if (user == null) {
+                failedCounter.increment();
+                pending.ack().completeExceptionally(new IllegalArgumentException("User not found: " + pending.username()));
+                continue;
+            }
+            pending.pac().setUser(user);
+            resolved.add(pending);
+        }
+        if (resolved.isEmpty()) {
+            return;
+        }
+
+        try {
+            pacService.submitPacBatch(resolved.stream().map(PendingSubmission::pac).toList());
+            resolved.forEach(pending -> pending.ack().complete(null));
+        } catch (Exception e) {
+            if (resolved.size() == 1) {
+                fail(resolved.get(0), e);
+                return;
+            }
+            logger.warn("PAC batch of {} failed, retrying entries individually", resolved.size(), e);
+            for (PendingSubmission pending : resolved) {
+                try {
+                    pending.pac().setId(null);
+                    pacService.submitPacBatch(List.of(pending.pac()));
+                    pending.ack().complete(null);
+                } catch (Exception single) {
+                    fail(pending, single);
+                }
+            }
+        }
+    }
+
+    private void fail(PendingSubmission pending, Exception e) {
+        failedCounter.increment();
+        logger.error("Failed to ingest PAC for {}", pending.username(), e);
+        pending.ack().completeExceptionally(e);
+    }
+
+    /**
+     * Stops accepting submissions and waits for what is already queued.
+     *
+     * @note The flusher exits on its own once the queue is empty; anything
+     *       still queued after it stops (or times out) is failed, so no
+     *       caller's future is left hanging
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        accepting = false;
+        if (flusher.isAlive()) {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        List<PendingSubmission> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        if (!leftovers.isEmpty()) {
+            logger.warn("Failing {} PAC submissions still queued at shutdown", leftovers.size());
+            RejectedExecutionException rejected = new RejectedExecutionException("PAC ingestion is shutting down");
+            leftovers.forEach(pending -> pending.ack().completeExceptionally(rejected));
+        }
+    }
+
+    private record PendingSubmission(Pac pac, String username, CompletableFuture<Void> ack) {
+    }
+}
@@ -0,0 +1,163 @@
+/* =================================================================
+ * PAC Rollup Service
+ * 
+ * PURPOSE: Keeps pac_daily_user_rollup in step with the pac table
+ * 
+ * CORE FUNCTIONALITY:
+ * - Applies each PAC submit/delete to its (user, store, day) row
+ * - Applies ingestion batches with one upsert per distinct row
+ * - Drops a deleted user's rows with the account
+ * - Rebuilds the whole rollup from pac for backfill or repair
+ * 
+ * DEPENDENCIES:
+ * - PacDailyUserRollupRepository (native upsert and rebuild)
+ * - PacRepository (backfill check)
+ * 
+ * IMPORTANT NOTES:
+ * - Incremental updates must join the caller's write transaction, so
+ *   a rolled back PAC write never leaves the rollup out of step
+ * - An empty rollup is backfilled at startup, before the web server
+ *   accepts submissions and before productivity totals are seeded from it
+ * ================================================================= */
+package com.demoproject.demo.services;
+
+import com.demoproject.demo.entity.Pac;
+import com.demoproject.demo.entity.PacDailyUserRollup;
+import com.demoproject.demo.entity.PacDailyUserRollupId;
+import com.demoproject.demo.pacmedproductivity.PacChangeEvent;
+import com.demoproject.demo.pacmedproductivity.ProductivityTotals;
+import com.demoproject.demo.repository.PacDailyUserRollupRepository;
+import com.demoproject.demo.repository.PacRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class PacRollupService implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(PacRollupService.class);
+    private final PacDailyUserRollupRepository rollupRepository;
+    private final PacRepository pacRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * @param rollupRepository Rollup maintenance queries
+     * @param pacRepository Source PAC data
+     * @param transactionManager Transaction manager for the startup backfill
+     */
+    public PacRollupService(PacDailyUserRollupRepository rollupRepository,
+                            PacRepository pacRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.pacRepository = pacRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /* ===== Incremental Maintenance ===== */
+
+    /**
+     * Applies one PAC change to its rollup row.
+     *
+     * @param userId Owner of the PAC entry
+     * @param event Change being written in the current transaction
+     * @throws org.springframework.transaction.IllegalTransactionStateException if no transaction is active
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyChange(Long userId, PacChangeEvent event) {
+        LocalDate day = dayOf(event);
+        ProductivityTotals delta = event.toDelta();
+        rollupRepository.applyDelta(userId, event.getStore(), day,
+            delta.getSubmissions(), delta.getPouchesChecked(), delta.getTotalSeconds());
+        if (delta.getSubmissions() < 0) {
+            rollupRepository.deleteIfEmpty(userId, event.getStore(), day);
+        }
+    }
+
+    /**
+     * Applies a batch of submissions, one upsert per (user, store, day).
+     *
+     * @param submitted Freshly persisted entries with their users attached
+     * @throws org.springframework.transaction.IllegalTransactionStateException if no transaction is active
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applySubmitted(List<Pac> submitted) {
+        Map<PacDailyUserRollupId, ProductivityTotals> deltas = new HashMap<>();
+        for (Pac pac : submitted) {
+            PacChangeEvent event = PacChangeEvent.submitted(pac);
+            PacDailyUserRollupId id = new PacDailyUserRollupId(pac.getUser().getId(), event.getStore(), dayOf(event));
+            deltas.merge(id, event.toDelta(), ProductivityTotals::plus);
+        }
+        deltas.forEach((id, delta) -> rollupRepository.applyDelta(id.getUserId(), id.getStore(), id.getDay(),
+            delta.getSubmissions(), delta.getPouchesChecked(), delta.getTotalSeconds()));
+    }
+
+    /**
+     * Drops every rollup row of a user whose account is being deleted.
+     *
+     * @param userId User being deleted; their PAC rows go with the account
+     * @returns Rollup rows removed
+     * @throws org.springframework.transaction.IllegalTransactionStateException if no transaction is active
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int removeUser(Long userId) {
+        return rollupRepository.deleteByUserId(userId);
+    }
+
+    private static LocalDate dayOf(PacChangeEvent event) {
+        return event.getSubmissionDate() != null
+            ? event.getSubmissionDate().toLocalDate()
+            : PacDailyUserRollup.UNDATED;
+    }
+
+    /* ===== Rebuild ===== */
+
+    /**
+     * Rebuilds the rollup from every PAC row.
+     *
+     * @returns Number of rollup rows written
+     * @note Holds an exclusive lock on the rollup, so PAC writes wait for the rebuild
+     */
+    @Transactional
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        rollupRepository.lockForRebuild();
+        rollupRepository.deleteAllRows();
+        int rows = rollupRepository.insertFromPac();
+        logger.info("Rebuilt PAC daily rollup: {} rows in {}ms", rows, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    /**
+     * Backfills an empty rollup once every bean exists.
+     *
+     * @note Runs before the context starts the web server, so no submission can
+     *       land in an empty rollup first and make it look already backfilled;
+     *       also ahead of ProductivityAccumulator's seed, which reads the rollup
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        backfillIfEmpty();
+    }
+
+    private void backfillIfEmpty() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (rollupRepository.count() == 0 && pacRepository.count() > 0) {
+                    logger.info("PAC daily rollup is empty, backfilling from pac");
+                    rebuild();
+                }
+            });
+        } catch (Exception e) {
+            logger.error("PAC daily rollup backfill failed", e);
+        }
+    }
+}
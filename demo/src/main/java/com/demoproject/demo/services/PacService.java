@@ -11,7 +11,10 @@
  * DEPENDENCIES:
  * - Spring Framework (Service, Transactional, Retry)
  * - PAC and User repositories
- * - UserProductivityService
+ * - UserDirectory (username to id without a users query)
+ * - ApplicationEventPublisher (PacChangeEvent for productivity listeners)
+ * - PacRollupService (daily rollup kept in the same transaction)
+ * - PacSubmissionDeduplicator (callers; request keys are rechecked here)
  * 
  * IMPORTANT NOTES:
  * - Uses pagination for large dataset handling
@@ -21,10 +24,11 @@
 package com.demoproject.demo.services;
 
 import com.demoproject.demo.entity.Pac;
-import com.demoproject.demo.entity.User;
 import com.demoproject.demo.repository.PacRepository;
 import com.demoproject.demo.repository.UserRepository;
-import com.demoproject.demo.pacmedproductivity.UserProductivityService;
+import com.demoproject.demo.pacmedproductivity.PacChangeEvent;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.Page;
@@ -36,6 +40,11 @@ import org.springframework.transaction.annotation.Propagation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 /**
  * Service layer for PAC (Productivity Activity Counter) management.
  * 
@@ -48,22 +57,30 @@ public class PacService {
     private static final Logger logger = LoggerFactory.getLogger(PacService.class);
     private final PacRepository pacRepository;
     private final UserRepository userRepository;
-    private final UserProductivityService userProductivityService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PacRollupService rollupService;
+    private final UserDirectory userDirectory;
 
     /**
      * Initializes service with required dependencies.
      * 
      * @param pacRepository Data access for PAC records
      * @param userRepository Data access for user records
-     * @param userProductivityService Productivity calculation service
+     * @param eventPublisher Publishes PacChangeEvent for productivity listeners
+     * @param rollupService Maintains pac_daily_user_rollup
+     * @param userDirectory Cached username resolution
      * @note All parameters are required and non-null
      */
     public PacService(PacRepository pacRepository,
                      UserRepository userRepository,
-                     UserProductivityService userProductivityService) {
+                     ApplicationEventPublisher eventPublisher,
+                     PacRollupService rollupService,
+                     UserDirectory userDirectory) {
         this.pacRepository = pacRepository;
         this.userRepository = userRepository;
-        this.userProductivityService = userProductivityService;
+        this.eventPublisher = eventPublisher;
+        this.rollupService = rollupService;
+        this.userDirectory = userDirectory;
     }
 
     /* ===== PAC Creation Operations ===== */
@@ -73,9 +90,16 @@ public class PacService {
      *
      * @param pac Entry to submit (must contain all required fields)
      * @param username Associated user identifier
+     * @returns false if the entry's request key was already stored, so nothing was written
      * @throws RuntimeException User not found
      * @throws IllegalArgumentException Invalid PAC data
      * @note Creates new transaction to avoid deadlocks
+     * @note The daily rollup is updated in the same transaction
+     * @note Productivity totals and SSE updates run after commit via PacChangeEvent
+     * @note Transient database failures propagate unwrapped, so @Retryable runs the
+     *       submission again in a new transaction; each attempt rechecks the request
+     *       key first, so a key that did get stored is not inserted twice
+     * @note The user is attached as a reference proxy, so no users row is read
      */
     @Retryable(
         value = {TransientDataAccessException.class},
@@ -83,30 +107,105 @@ public class PacService {
         backoff = @Backoff(delay = 1000)
     )
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void submitPac(Pac pac, String username) {
+    @Timed(value = "pac.submit", description = "Single PAC submission, including retries")
+    public boolean submitPac(Pac pac, String username) {
         try {
-            User user = userRepository.findByUsername(username)
+            UserDirectory.Entry user = userDirectory.find(username)
                 .orElseThrow(() -> new RuntimeException("User not found: " + username));
+
+            if (pac.getRequestKey() != null
+                    && pacRepository.existsByUserIdAndRequestKey(user.id(), pac.getRequestKey())) {
+                logger.info("Skipping repeated PAC submission {} from {}", pac.getRequestKey(), username);
+                return false;
+            }
             
-            pac.setUser(user);
+            pac.setUser(userRepository.getReferenceById(user.id()));
             validatePac(pac);
             pacRepository.save(pac);
             
-            userProductivityService.notifyProductivityUpdate();
+            PacChangeEvent event = PacChangeEvent.submitted(pac, username);
+            rollupService.applyChange(user.id(), event);
+            eventPublisher.publishEvent(event);
+            return true;
+        } catch (TransientDataAccessException e) {
+            logger.warn("Transient failure submitting PAC for {}: {}", username, e.getMessage());
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to submit PAC", e);
             throw new RuntimeException("Failed to submit PAC", e);
         }
     }
 
+    /**
+     * Persists a batch of submissions in one transaction.
+     *
+     * @param pacs Entries with their users already attached
+     * @throws IllegalArgumentException Invalid PAC data (the whole batch rolls back)
+     * @note Used by PacIngestionService; the rollup gets one upsert per
+     *       (user, store, day) instead of one per entry
+     * @note Listeners still see one PacChangeEvent per entry after commit
+     * @note Entries whose request key is already stored are skipped
+     */
+    @Transactional
+    @Timed(value = "pac.submit.batch", description = "Batched PAC submission from the ingestion queue")
+    public void submitPacBatch(List<Pac> pacs) {
+        pacs.forEach(this::validatePac);
+        List<Pac> fresh = withoutStoredRequestKeys(pacs);
+        pacRepository.saveAll(fresh);
+        rollupService.applySubmitted(fresh);
+        fresh.forEach(pac -> eventPublisher.publishEvent(PacChangeEvent.submitted(pac)));
+    }
+
+    /**
+     * Drops entries whose (user, request key) is already stored.
+     *
+     * @param pacs Entries with their users attached
+     * @returns Entries still to insert
+     */
+    private List<Pac> withoutStoredRequestKeys(List<Pac> pacs) {
+        Set<String> keys = pacs.stream()
+            .map(Pac::getRequestKey)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        if (keys.isEmpty()) {
+            return pacs;
+        }
+        Set<String> stored = pacRepository.findStoredRequestKeys(keys).stream()
+            .map(row -> row[0] + ":" + row[1])
+            .collect(Collectors.toSet());
+        if (stored.isEmpty()) {
+            return pacs;
+        }
+        logger.info("Skipping {} repeated PAC submissions in batch", stored.size());
+        return pacs.stream()
+            .filter(pac -> pac.getRequestKey() == null
+                || !stored.contains(pac.getUser().getId() + ":" + pac.getRequestKey()))
+            .toList();
+    }
+
+    /**
+     * Checks whether a keyed submission has been committed.
+     *
+     * @param username Submitting user
+     * @param requestKey Client Idempotency-Key
+     * @returns true if the row exists, false for an unknown user
+     */
+    @Transactional(readOnly = true)
+    public boolean isSubmitted(String username, String requestKey) {
+        return userDirectory.find(username)
+            .map(user -> pacRepository.existsByUserIdAndRequestKey(user.id(), requestKey))
+            .orElse(false);
+    }
+
     /**
      * Validates PAC entry completeness.
      *
      * @param pac Entry to validate
      * @throws IllegalArgumentException Missing required fields
      * @note Required: store, startTime, endTime, pouchesChecked
+     * @note An endTime before startTime is accepted: the session crossed midnight
      */
-    private void validatePac(Pac pac) {
+    void validatePac(Pac pac) {
         if (pac.getStore() == null || pac.getStartTime() == null || 
             pac.getEndTime() == null || pac.getPouchesChecked() == null) {
             throw new IllegalArgumentException("Required PAC fields missing");
@@ -153,13 +252,18 @@ public class PacService {
      * @param id Entry identifier
      * @returns true if deleted, false if not found
      * @note Transactional operation
+     * @note Decrements the daily rollup in the same transaction
+     * @note Publishes PacChangeEvent so productivity totals drop the entry after commit
      */
     @Transactional
     public boolean deletePac(Long id) {
         return pacRepository.findById(id)
             .map(pac -> {
                 try {
+                    PacChangeEvent event = PacChangeEvent.deleted(pac);
                     pacRepository.delete(pac);
+                    rollupService.applyChange(pac.getUser().getId(), event);
+                    eventPublisher.publishEvent(event);
                     return true;
                 } catch (Exception e) {
                     logger.error("Failed to delete PAC: {}", id, e);
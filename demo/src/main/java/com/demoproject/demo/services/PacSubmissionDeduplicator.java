@@ -0,0 +1,138 @@
+/* =================================================================
+ * PAC Submission Deduplicator
+ *
+ * PURPOSE: Makes PAC submissions carrying an Idempotency-Key safe to
+ *          resend, so client retries never insert a second row
+ *
+ * CORE FUNCTIONALITY:
+ * - Remembers each (user, key) for a bounded time window
+ * - A repeat while the original is in flight waits for its outcome
+ * - A repeat after success replays it without touching the database
+ *
+ * DEPENDENCIES:
+ * - Caffeine (bounded, time-windowed key store)
+ * - PacService (stored-key check when the in-memory window misses)
+ * - Micrometer (replay counter, cache.* stats of the key store)
+ *
+ * IMPORTANT NOTES:
+ * - The window only saves work; the (user_id, request_key) unique
+ *   constraint on pac is what guarantees a single row across restarts
+ *   and nodes
+ * - Failed submissions are forgotten so the client can retry them
+ * ================================================================= */
+package com.demoproject.demo.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+@Service
+public class PacSubmissionDeduplicator {
+    private static final Logger logger = LoggerFactory.getLogger(PacSubmissionDeduplicator.class);
+    private static final Pattern REQUEST_KEY = Pattern.compile("^[A-Za-z0-9_-]{8,64}$");
+
+    private final PacService pacService;
+    private final Cache<String, CompletableFuture<Boolean>> submissions;
+    private final Counter replayCounter;
+
+    /**
+     * @param pacService Stored-key lookups
+     * @param meterRegistry Metrics registry
+     * @param window How long a key is remembered in memory
+     * @param maxKeys Most keys remembered at once
+     */
+    public PacSubmissionDeduplicator(PacService pacService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${pac.idempotency.window:24h}") Duration window,
+                                     @Value("${pac.idempotency.max-keys:100000}") long maxKeys) {
+        this.pacService = pacService;
+        this.submissions = Caffeine.newBuilder()
+            .expireAfterWrite(window)
+            .maximumSize(maxKeys)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, submissions, "pacIdempotencyKeys",
+            Tags.of("cache.manager", "idempotency"));
+        this.replayCounter = meterRegistry.counter("pac.submit.replayed");
+    }
+
+    /**
+     * @param requestKey Header value
+     * @returns true if the key is 8-64 characters of [A-Za-z0-9_-]
+     */
+    public static boolean isValidKey(String requestKey) {
+        return requestKey != null && REQUEST_KEY.matcher(requestKey).matches();
+    }
+
+    /* ===== Submission ===== */
+
+    /**
+     * Runs a keyed submission at most once.
+     *
+     * @param username Submitting user (keys are scoped per user)
+     * @param requestKey Client Idempotency-Key
+     * @param submission Performs the write; completes true if it inserted,
+     *                   false if the database already held the key
+     * @returns Future completing true when this call or an earlier one was a replay
+     * @note A failure, thrown or completed, counts as success if the key turns out
+     *       to be stored; otherwise the key is forgotten and the future fails with it
+     */
+    public CompletableFuture<Boolean> submitOnce(String username, String requestKey,
+                                                 Supplier<CompletableFuture<Boolean>> submission) {
+        String key = username + '\n' + requestKey;
+        CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+        CompletableFuture<Boolean> previous = submissions.asMap().putIfAbsent(key, outcome);
+        if (previous != null) {
+            replayCounter.increment();
+            logger.debug("Replaying PAC submission {} for {}", requestKey, username);
+            return previous.thenApply(inserted -> true);
+        }
+
+        CompletableFuture<Boolean> write;
+        try {
+            write = submission.get();
+        } catch (RuntimeException e) {
+            // A direct write fails synchronously, e.g. on the request key's unique constraint
+            write = CompletableFuture.failedFuture(e);
+        }
+        write.whenComplete((inserted, error) -> {
+            if (error == null) {
+                outcome.complete(inserted);
+            } else if (isStored(username, requestKey)) {
+                // Lost commit outcome or a concurrent insert on another node: the row is there
+                outcome.complete(false);
+            } else {
+                forget(key, outcome, error);
+            }
+        });
+        return outcome.thenApply(inserted -> !inserted);
+    }
+
+    private void forget(String key, CompletableFuture<Boolean> outcome, Throwable error) {
+        submissions.asMap().remove(key, outcome);
+        outcome.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+            ? error.getCause() : error);
+    }
+
+    private boolean isStored(String username, String requestKey) {
+        try {
+            return pacService.isSubmitted(username, requestKey);
+        } catch (RuntimeException e) {
+            logger.warn("Could not check PAC request key {} for {}", requestKey, username, e);
+            return false;
+        }
+    }
+}
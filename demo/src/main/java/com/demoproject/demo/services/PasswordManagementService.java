@@ -34,18 +34,22 @@ public class PasswordManagementService {
      * -------------------------------------------------------------------------- */
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserDirectory userDirectory;
 
     /**
      * Initializes password management service with required components.
      * 
      * @param userRepository Data access for user operations
      * @param passwordEncoder Security component for password hashing
+     * @param userDirectory Cached login details, refreshed on password change
      * @note Both dependencies are required and must be non-null
      */
     public PasswordManagementService(UserRepository userRepository, 
-                                   PasswordEncoder passwordEncoder) {
+                                   PasswordEncoder passwordEncoder,
+                                   UserDirectory userDirectory) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userDirectory = userDirectory;
     }
 
     /* --------------------------------------------------------------------------
@@ -84,6 +88,7 @@ public class PasswordManagementService {
         String encodedPassword = passwordEncoder.encode(newPassword);
         user.setPassword(encodedPassword);
         userRepository.save(user);
+        userDirectory.invalidate(username);
     }
 
     /* --------------------------------------------------------------------------
@@ -11,6 +11,7 @@
  * DEPENDENCIES:
  * - Spring Framework (Service, Transactional)
  * - UserRepository for persistence
+ * - PacRollupService and ProductivityRefresher (derived productivity data)
  * - User entity
  * 
  * SECURITY NOTES:
@@ -23,6 +24,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.demoproject.demo.repository.UserRepository;
 import com.demoproject.demo.entity.User;
+import com.demoproject.demo.pacmedproductivity.ProductivityRefresher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +36,9 @@ public class UserDeletionService {
      * -------------------------------------------------------------------------- */
     private final UserRepository userRepository;
     private final AuditLogService auditLogService;
+    private final UserDirectory userDirectory;
+    private final PacRollupService rollupService;
+    private final ProductivityRefresher productivityRefresher;
     private static final Logger logger = LoggerFactory.getLogger(UserDeletionService.class);
 
     /**
@@ -41,12 +46,21 @@ public class UserDeletionService {
      * 
      * @param userRepository Data access for user operations
      * @param auditLogService Data access for audit logging
+     * @param userDirectory Cached user lookups, forgotten on deletion
+     * @param rollupService Daily rollup, cleared of the user's rows
+     * @param productivityRefresher Reseeds totals and leaderboards without the user
      * @note Repository must be non-null
      */
     public UserDeletionService(UserRepository userRepository, 
-                             AuditLogService auditLogService) {
+                             AuditLogService auditLogService,
+                             UserDirectory userDirectory,
+                             PacRollupService rollupService,
+                             ProductivityRefresher productivityRefresher) {
         this.userRepository = userRepository;
         this.auditLogService = auditLogService;
+        this.userDirectory = userDirectory;
+        this.rollupService = rollupService;
+        this.productivityRefresher = productivityRefresher;
     }
 
     /* --------------------------------------------------------------------------
@@ -61,7 +75,8 @@ public class UserDeletionService {
      * @throws IllegalArgumentException User not found
      * @security Prevents admin deletion
      * @performance Single transaction scope
-     * @note Consider audit logging before deletion
+     * @note The user's PAC rows go through the JPA cascade and their rollup rows
+     *       in the same transaction; in-memory totals are reseeded after commit
      */
     @Transactional
     public void deleteUser(String username) {
@@ -81,7 +96,10 @@ public class UserDeletionService {
             auditLogService.logEvent("USER_DELETION", "USER", 
                 "User deleted: " + username);
             
+            rollupService.removeUser(user.getId());
             userRepository.delete(user);
+            userDirectory.invalidate(username);
+            productivityRefresher.refreshAfterCommit();
             logger.info("Successfully deleted user: {}", username);
         } catch (Exception e) {
             logger.error("Failed to delete user: {}", username, e);
@@ -0,0 +1,205 @@
+/* =================================================================
+ * User Directory
+ *
+ * PURPOSE: In-memory username lookup for hot paths (PAC submit,
+ *          login, per-user productivity) that only need a user's
+ *          id, role and password hash
+ *
+ * CORE FUNCTIONALITY:
+ * - Loads every user once the application is ready
+ * - Reads through to the database on a miss and remembers the result
+ * - Forgets a user when registration, deletion or a password change commits,
+ *   on this node and (with cluster.bus.enabled) on every other node
+ * - Forgets everyone when the bus (re)connects or another node reports lost
+ *   messages, since evictions that never arrived cannot be replayed
+ *
+ * DEPENDENCIES:
+ * - UserRepository (startup load and misses)
+ * - Caffeine (entries expire after user.directory.expire-after-write)
+ * - PgNotificationBus (optional, cross-node evictions)
+ *
+ * IMPORTANT NOTES:
+ * - Unknown usernames are not remembered, so a new user is found on
+ *   first use even before the registration eviction runs
+ * - Evictions repeat when the writing transaction completes, and every
+ *   eviction bumps a generation that read-through misses check around
+ *   their put, so a lookup racing the write cannot re-cache the old row
+ * - Entries expire even without an eviction, which bounds how long a
+ *   missed cross-node eviction can leave a stale row behind
+ * ================================================================= */
+package com.demoproject.demo.services;
+
+import com.demoproject.demo.connections.PgNotificationBus;
+import com.demoproject.demo.entity.User;
+import com.demoproject.demo.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class UserDirectory {
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectory.class);
+    public static final String CHANNEL = "user_directory";
+
+    /**
+     * What hot paths need to know about a user.
+     *
+     * @param id Primary key, for reference-only User proxies
+     * @param username Login name
+     * @param role Authorization role
+     * @param passwordHash Encoded password; changes whenever the password does
+     */
+    public record Entry(Long id, String username, User.Role role, String passwordHash) {
+        static Entry of(User user) {
+            return new Entry(user.getId(), user.getUsername(), user.getRole(), user.getPassword());
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PgNotificationBus bus;
+    private final Cache<String, Entry> entries;
+    // Bumped before every eviction so a miss that loaded the old row does not keep it
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param userRepository User source
+     * @param transactionManager Transaction manager for the load queries
+     * @param bus Cross-node bus, present when cluster.bus.enabled=true
+     * @param expireAfterWrite How long an entry is trusted without an eviction
+     */
+    public UserDirectory(UserRepository userRepository, PlatformTransactionManager transactionManager,
+                         ObjectProvider<PgNotificationBus> bus,
+                         @Value("${user.directory.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.userRepository = userRepository;
+        this.entries = Caffeine.newBuilder().expireAfterWrite(expireAfterWrite).build();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.bus = bus.getIfAvailable();
+        if (this.bus != null) {
+            this.bus.subscribe(CHANNEL, message -> evict(message.asText()));
+            this.bus.onResync(this::evictAll);
+        }
+    }
+
+    /* ===== Loading ===== */
+
+    /**
+     * Loads every user once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            List<User> users = transactionTemplate.execute(status -> userRepository.findAll());
+            users.forEach(user -> entries.put(user.getUsername(), Entry.of(user)));
+            logger.info("User directory loaded {} users", users.size());
+        } catch (Exception e) {
+            logger.error("Failed to load user directory, lookups will read through", e);
+        }
+    }
+
+    /* ===== Lookups ===== */
+
+    /**
+     * @param username Login name
+     * @returns The user's entry, empty if no such user exists
+     * @note A loaded row is kept only if no eviction ran while it was read
+     */
+    public Optional<Entry> find(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        Entry entry = entries.getIfPresent(username);
+        if (entry != null) {
+            return Optional.of(entry);
+        }
+        long generation = invalidations.get();
+        Optional<Entry> loaded = transactionTemplate.execute(status ->
+            userRepository.findByUsername(username).map(Entry::of));
+        loaded.ifPresent(found -> remember(username, found, generation));
+        return loaded;
+    }
+
+    /**
+     * Caches a read-through result unless an eviction overlapped the read
+     * @note Rechecked after the put: an eviction landing between the check
+     *       and the put bumps the generation first, so the entry is taken back
+     */
+    private void remember(String username, Entry found, long generation) {
+        if (invalidations.get() != generation) {
+            return;
+        }
+        entries.put(username, found);
+        if (invalidations.get() != generation) {
+            entries.asMap().remove(username, found);
+        }
+    }
+
+    /**
+     * @param username Login name
+     * @returns true if the user exists
+     */
+    public boolean contains(String username) {
+        return find(username).isPresent();
+    }
+
+    /* ===== Invalidation ===== */
+
+    /**
+     * Forgets a user now and again once the current transaction completes.
+     *
+     * @param username User whose row is being written
+     * @note Other nodes are told once the transaction completes, so they
+     *       cannot reload the row before it commits
+     */
+    public void invalidate(String username) {
+        evict(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(username);
+                    publish(username);
+                }
+            });
+        } else {
+            publish(username);
+        }
+    }
+
+    private void evict(String username) {
+        invalidations.incrementAndGet();
+        entries.invalidate(username);
+    }
+
+    /**
+     * Forgets every user after the bus resynchronizes
+     * @note Runs on the bus thread; entries are read through again on first use
+     */
+    private void evictAll() {
+        invalidations.incrementAndGet();
+        entries.invalidateAll();
+        logger.info("User directory cleared after the notification bus connected");
+    }
+
+    private void publish(String username) {
+        if (bus != null) {
+            bus.publish(CHANNEL, username);
+        }
+    }
+}
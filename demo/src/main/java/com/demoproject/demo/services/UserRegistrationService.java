@@ -40,6 +40,7 @@ public class UserRegistrationService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuditLogService auditLogService;
+    private final UserDirectory userDirectory;
     private static final Logger logger = LoggerFactory.getLogger(UserRegistrationService.class);
 
     /**
@@ -48,14 +49,17 @@ public class UserRegistrationService {
      * @param userRepository Data access for user operations
      * @param passwordEncoder Security component for password hashing
      * @param auditLogService Service for audit logging
+     * @param userDirectory Cached user lookups, refreshed on registration
      * @note Both dependencies must be non-null
      */
     public UserRegistrationService(UserRepository userRepository, 
                                  PasswordEncoder passwordEncoder,
-                                 AuditLogService auditLogService) {
+                                 AuditLogService auditLogService,
+                                 UserDirectory userDirectory) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.auditLogService = auditLogService;
+        this.userDirectory = userDirectory;
     }
 
     /* --------------------------------------------------------------------------
@@ -89,6 +93,7 @@ public class UserRegistrationService {
             newUser.setRole(convertStringToRole(userDTO.getRole()));
 
             User savedUser = userRepository.save(newUser);
+            userDirectory.invalidate(savedUser.getUsername());
             logger.info("Successfully registered new user: {}", userDTO.getUsername());
             
             // Add audit log entry
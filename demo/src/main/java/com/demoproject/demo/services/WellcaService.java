@@ -2,6 +2,7 @@ package com.demoproject.demo.services;
 
 import com.demoproject.demo.entity.Wellca;
 import com.demoproject.demo.repository.WellcaRepository;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.CacheManager;
@@ -69,6 +70,7 @@ public class WellcaService {
      * @return Optional containing the entry if found
      */
     @Cacheable(value = "wellcaData", key = "#date")
+    @Timed(value = "wellca.read", extraTags = {"endpoint", "date"})
     public Optional<Wellca> getEntryByDate(LocalDate date) {
         logger.debug("Fetching Wellca entry for date: {}", date);
         Optional<Wellca> entry = wellcaRepository.findByDate(date);
@@ -84,6 +86,7 @@ public class WellcaService {
      * @return List of entries
      */
     @Cacheable(value = "wellcaRangeData", key = "#startDate.toString() + '-' + #endDate.toString()")
+    @Timed(value = "wellca.read", extraTags = {"endpoint", "range"})
     public List<Wellca> getEntriesInRange(LocalDate startDate, LocalDate endDate) {
         logger.debug("Fetching Wellca entries between {} and {}", startDate, endDate);
         List<Wellca> entries = wellcaRepository.findByDateBetweenOrderByDateAsc(startDate, endDate);
@@ -99,6 +102,7 @@ public class WellcaService {
      * @return Weekly aggregated data
      */
     @Transactional(readOnly = true)
+    @Timed(value = "wellca.read", extraTags = {"endpoint", "weekly"})
     public Map<String, Object> getWeeklyStats(LocalDate weekStartDate) {
         LocalDate weekEndDate = weekStartDate.plusDays(6);
         List<Wellca> weeklyData = wellcaRepository.findWeeklyData(weekStartDate, weekEndDate);
@@ -113,6 +117,7 @@ public class WellcaService {
      * @return Service statistics
      */
     @Transactional(readOnly = true)
+    @Timed(value = "wellca.read", extraTags = {"endpoint", "service.types"})
     public List<Map<String, Object>> getServiceTypeStats(LocalDate startDate, LocalDate endDate) {
         logger.debug("Fetching service type stats for period {} to {}", startDate, endDate);
         return wellcaRepository.getServiceTypeStats(startDate, endDate);
@@ -160,6 +165,7 @@ public class WellcaService {
      * @return Monthly delivery statistics
      */
     @Transactional(readOnly = true)
+    @Timed(value = "wellca.read", extraTags = {"endpoint", "monthly.deliveries"})
     public List<Map<String, Object>> getMonthlyDeliveryCounts(LocalDate yearMonth) {
         LocalDate startDate = yearMonth.withDayOfMonth(1);
         LocalDate endDate = yearMonth.withDayOfMonth(yearMonth.lengthOfMonth());
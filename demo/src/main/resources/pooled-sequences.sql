@@ -0,0 +1,23 @@
+-- Move pac, wellca_entries and audit_logs ids to pooled sequences
+--
+-- Run once before deploying the SEQUENCE id mappings. Hibernate draws
+-- ids in blocks of 50 (allocationSize), so each table's id sequence
+-- must step by 50; otherwise startup fails on the increment mismatch.
+-- Works for BIGSERIAL and identity columns alike, and keeps the column
+-- default so raw SQL inserts still get non-overlapping ids.
+DO $$
+DECLARE
+    tbl TEXT;
+    seq TEXT;
+BEGIN
+    FOREACH tbl IN ARRAY ARRAY['pac', 'wellca_entries', 'audit_logs'] LOOP
+        seq := pg_get_serial_sequence(tbl, 'id');
+        IF seq IS NULL THEN
+            -- Table not created yet; Hibernate creates the sequence itself
+            CONTINUE;
+        END IF;
+        EXECUTE format('ALTER SEQUENCE %s INCREMENT BY 50', seq);
+        -- Next block starts above every existing id
+        EXECUTE format('SELECT setval(%L, (SELECT COALESCE(MAX(id), 0) FROM %I) + 50, false)', seq, tbl);
+    END LOOP;
+END $$;
@@ -334,10 +334,12 @@ function setupSSEConnection() {
         }
     };
     
+    // Let the browser reconnect with Last-Event-ID; rebuild only once it gives up
     eventSource.onerror = function(error) {
         console.error('Error in SSE connection:', error);
-        eventSource.close();
-        setTimeout(setupSSEConnection, 5000);
+        if (eventSource.readyState === EventSource.CLOSED) {
+            setTimeout(setupSSEConnection, 5000);
+        }
     };
 }
 
@@ -73,6 +73,9 @@ document.addEventListener('DOMContentLoaded', function() {
      * Form Submission Handler
      * @note Includes validation and error handling
      * --------------------------------------------------------------------- */
+    let pendingRequestKey = null;
+    let pendingPayload = null;
+
     form.addEventListener('submit', function(e) {
         e.preventDefault();
         
@@ -105,20 +108,31 @@ document.addEventListener('DOMContentLoaded', function() {
             pouchesChecked: parseInt(formData.get('pouchesChecked'))
         };
 
+        // Reuse the request key while resending the same entry, so a retry
+        // after a lost response cannot record it twice
+        const payload = JSON.stringify(pacData);
+        if (!pendingRequestKey || pendingPayload !== payload) {
+            pendingRequestKey = crypto.randomUUID();
+            pendingPayload = payload;
+        }
+
         // Submit data to server
         fetch('/submit-questions', {
             method: 'POST',
             headers: {
                 'Content-Type': 'application/json',
-                'X-CSRF-TOKEN': csrfToken
+                'X-CSRF-TOKEN': csrfToken,
+                'Idempotency-Key': pendingRequestKey
             },
-            body: JSON.stringify(pacData)
+            body: payload
         })
         .then(response => {
             if (!response.ok) throw new Error('Network response was not ok');
             return response.text();
         })
         .then(data => {
+            pendingRequestKey = null;
+            pendingPayload = null;
             successMessage.textContent = data;
             successMessage.style.display = 'block';
             form.reset();
@@ -228,10 +242,12 @@ document.addEventListener('DOMContentLoaded', function() {
             }
         };
 
+        // Let the browser reconnect with Last-Event-ID; rebuild only once it gives up
         eventSource.onerror = function(error) {
             console.error('Error in SSE connection:', error);
-            eventSource.close();
-            setTimeout(setupSSEConnection, 5000);
+            if (eventSource.readyState === EventSource.CLOSED) {
+                setTimeout(setupSSEConnection, 5000);
+            }
         };
     }
 
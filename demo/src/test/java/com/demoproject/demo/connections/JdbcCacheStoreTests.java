@@ -0,0 +1,63 @@
+package com.demoproject.demo.connections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+
+@SpringBootTest(properties = "cache.l2.enabled=true")
+class JdbcCacheStoreTests {
+
+	private static final String CACHE = "jdbcCacheStoreTests";
+
+	@Autowired
+	private JdbcCacheStore cacheStore;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ScheduledTaskHolder scheduledTasks;
+
+	@AfterEach
+	void removeTestRows() {
+		jdbcTemplate.update("DELETE FROM cache_l2 WHERE cache_name = ?", CACHE);
+	}
+
+	@Test
+	void purgeRemovesOnlyExpiredRows() {
+		insert("expired", Instant.now().minus(1, ChronoUnit.MINUTES));
+		insert("live", Instant.now().plus(1, ChronoUnit.HOURS));
+
+		cacheStore.purgeExpired();
+
+		assertEquals(0, count("expired"), "expired row should be purged");
+		assertEquals(1, count("live"), "unexpired row should be kept");
+	}
+
+	@Test
+	void purgeIsScheduled() {
+		assertTrue(scheduledTasks.getScheduledTasks().stream()
+				.anyMatch(task -> task.getTask().getRunnable().toString().endsWith("JdbcCacheStore.purgeExpired")),
+			"purgeExpired should be registered with the task scheduler");
+	}
+
+	private void insert(String key, Instant expiresAt) {
+		jdbcTemplate.update("INSERT INTO cache_l2 (cache_name, cache_key, cache_value, expires_at) VALUES (?, ?, ?, ?)",
+			CACHE, key, new byte[] {0}, Timestamp.from(expiresAt));
+	}
+
+	private int count(String key) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cache_l2 WHERE cache_name = ? AND cache_key = ?",
+			Integer.class, CACHE, key);
+	}
+
+}
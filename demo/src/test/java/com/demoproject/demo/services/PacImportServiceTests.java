@@ -0,0 +1,122 @@
+package com.demoproject.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Row parsing of the CSV import, without a database.
+ */
+class PacImportServiceTests {
+
+	private static final LocalDateTime IMPORTED_AT = LocalDateTime.of(2024, 3, 1, 12, 0);
+	private static final Map<String, Integer> COLUMNS = PacImportService.indexColumns(
+		PacImportService.splitCsvLine("username,store,submission_date,start_time,end_time,pouches_checked"));
+	private static final Map<String, Long> USER_IDS = Map.of("alice", 7L);
+
+	// validatePac needs no collaborators, so the real rules run against a bare mock
+	private final PacImportService importService = new PacImportService(
+		null, null, mock(PacService.class, CALLS_REAL_METHODS), null, 100);
+
+	@Test
+	void splitsPlainFields() {
+		assertEquals(List.of("alice", "North", "", "09:00"), PacImportService.splitCsvLine("alice,North,,09:00"));
+	}
+
+	@Test
+	void keepsCommasInsideQuotedFields() {
+		assertEquals(List.of("alice", "North, Unit 2", "5"), PacImportService.splitCsvLine("alice,\"North, Unit 2\",5"));
+	}
+
+	@Test
+	void unescapesDoubledQuotes() {
+		assertEquals(List.of("The \"Main\" Store", "x"), PacImportService.splitCsvLine("\"The \"\"Main\"\" Store\",x"));
+	}
+
+	@Test
+	void keepsTrailingEmptyField() {
+		assertEquals(List.of("a", "b", ""), PacImportService.splitCsvLine("a,b,"));
+	}
+
+	@Test
+	void rendersStagingRow() {
+		String row = importService.toStagingRow(
+			PacImportService.splitCsvLine("alice,North,2024-02-03 10:15:30.250,09:00,09:30,40"), COLUMNS, USER_IDS, IMPORTED_AT);
+
+		assertEquals("7,\"North\",2024-02-03T10:15:30,09:00,09:30,40", row);
+	}
+
+	@Test
+	void quotesStoreInStagingRow() {
+		String row = importService.toStagingRow(
+			PacImportService.splitCsvLine("alice,\"North, \"\"A\"\"\",2024-02-03,09:00,09:30,40"), COLUMNS, USER_IDS, IMPORTED_AT);
+
+		assertEquals("7,\"North, \"\"A\"\"\",2024-02-03T00:00,09:00,09:30,40", row);
+	}
+
+	@Test
+	void defaultsMissingSubmissionDateToImportTime() {
+		String row = importService.toStagingRow(
+			PacImportService.splitCsvLine("alice,North,,09:00,09:30,40"), COLUMNS, USER_IDS, IMPORTED_AT);
+
+		assertEquals("7,\"North\",2024-03-01T12:00,09:00,09:30,40", row);
+	}
+
+	@Test
+	void acceptsSessionCrossingMidnight() {
+		String row = importService.toStagingRow(
+			PacImportService.splitCsvLine("alice,North,2024-02-03,23:30,00:15,40"), COLUMNS, USER_IDS, IMPORTED_AT);
+
+		assertEquals("7,\"North\",2024-02-03T00:00,23:30,00:15,40", row);
+	}
+
+	@Test
+	void rejectsShortRow() {
+		List<String> fields = PacImportService.splitCsvLine("alice,North,2024-02-03,09:00");
+
+		assertThrows(IllegalArgumentException.class,
+			() -> importService.toStagingRow(fields, COLUMNS, USER_IDS, IMPORTED_AT));
+	}
+
+	@Test
+	void rejectsUnknownUser() {
+		List<String> fields = PacImportService.splitCsvLine("mallory,North,2024-02-03,09:00,09:30,40");
+
+		assertThrows(IllegalArgumentException.class,
+			() -> importService.toStagingRow(fields, COLUMNS, USER_IDS, IMPORTED_AT));
+	}
+
+	@Test
+	void rejectsNonNumericPouches() {
+		List<String> fields = PacImportService.splitCsvLine("alice,North,2024-02-03,09:00,09:30,forty");
+
+		assertThrows(IllegalArgumentException.class,
+			() -> importService.toStagingRow(fields, COLUMNS, USER_IDS, IMPORTED_AT));
+	}
+
+	@Test
+	void parsesDateOnlyAsStartOfDay() {
+		assertEquals(LocalDateTime.of(2024, 2, 3, 0, 0), PacImportService.parseSubmissionDate("2024-02-03"));
+	}
+
+	@Test
+	void parsesDateTimeWithSpaceOrT() {
+		LocalDateTime expected = LocalDateTime.of(2024, 2, 3, 10, 15, 30);
+
+		assertEquals(expected, PacImportService.parseSubmissionDate("2024-02-03 10:15:30"));
+		assertEquals(expected, PacImportService.parseSubmissionDate("2024-02-03T10:15:30.999"));
+	}
+
+	@Test
+	void rejectsMalformedDate() {
+		assertThrows(DateTimeParseException.class, () -> PacImportService.parseSubmissionDate("03/02/2024"));
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.demoproject.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import com.demoproject.demo.entity.Pac;
+import com.demoproject.demo.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Shutdown handling of the write-behind queue, without a database.
+ */
+class PacIngestionServiceTests {
+
+	// The flusher is never started, so queued entries can only be answered by shutdown
+	private final PacIngestionService ingestionService = new PacIngestionService(
+		mock(PacService.class), mock(UserRepository.class), new SimpleMeterRegistry(), 10, 5, 25);
+
+	@Test
+	void shutdownFailsEntriesTheFlusherNeverTook() throws Exception {
+		CompletableFuture<Void> ack = ingestionService.submit(new Pac(), "alice");
+
+		ingestionService.shutdown();
+
+		ExecutionException e = assertThrows(ExecutionException.class, () -> ack.get(1, TimeUnit.SECONDS));
+		assertInstanceOf(RejectedExecutionException.class, e.getCause());
+	}
+
+	@Test
+	void rejectsSubmissionsAfterShutdown() throws Exception {
+		ingestionService.shutdown();
+
+		assertThrows(RejectedExecutionException.class, () -> ingestionService.submit(new Pac(), "alice"));
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.demoproject.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.demoproject.demo.entity.Pac;
+import com.demoproject.demo.entity.User;
+import com.demoproject.demo.repository.PacRepository;
+import com.demoproject.demo.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import java.sql.Time;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares batched sequence-id inserts with the row-per-round-trip inserts
+ * IDENTITY ids forced. Both runs roll back.
+ *
+ * Run with: mvn test -Dtest=PacInsertBenchmarkTests -Dbenchmark=true
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PacInsertBenchmarkTests {
+
+	private static final Logger logger = LoggerFactory.getLogger(PacInsertBenchmarkTests.class);
+	private static final int ROWS = 2000;
+	private static final LocalTime START = LocalTime.of(9, 0);
+	private static final LocalTime END = LocalTime.of(9, 30);
+
+	@Autowired
+	private PacRepository pacRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void batchedInsertsBeatRowByRowInserts() {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		User user = userRepository.findAll().stream().findFirst().orElseThrow();
+
+		// IDENTITY behaviour: one INSERT ... RETURNING round trip per row. The id is
+		// drawn explicitly because pac.id has no column default under SEQUENCE ids
+		long rowByRowNanos = transaction.execute(status -> {
+			status.setRollbackOnly();
+			long start = System.nanoTime();
+			for (int i = 0; i < ROWS; i++) {
+				jdbcTemplate.queryForObject(
+					"INSERT INTO pac (id, user_id, store, start_time, end_time, pouches_checked, submission_date) "
+						+ "VALUES (nextval('pac_id_seq'), ?, ?, ?, ?, ?, now()) RETURNING id",
+					Long.class, user.getId(), "bench", Time.valueOf(START), Time.valueOf(END), 10);
+			}
+			return System.nanoTime() - start;
+		});
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		long batchedNanos = transaction.execute(status -> {
+			status.setRollbackOnly();
+			List<Pac> pacs = new ArrayList<>(ROWS);
+			for (int i = 0; i < ROWS; i++) {
+				Pac pac = new Pac();
+				pac.setUser(user);
+				pac.setStore("bench");
+				pac.setStartTime(START);
+				pac.setEndTime(END);
+				pac.setPouchesChecked(10);
+				pacs.add(pac);
+			}
+			long start = System.nanoTime();
+			pacRepository.saveAll(pacs);
+			pacRepository.flush();
+			return System.nanoTime() - start;
+		});
+
+		logger.info("PAC inserts ({} rows): row-by-row {} ms ({} rows/s), batched {} ms ({} rows/s)",
+			ROWS,
+			rowByRowNanos / 1_000_000, Math.round(ROWS * 1e9 / rowByRowNanos),
+			batchedNanos / 1_000_000, Math.round(ROWS * 1e9 / batchedNanos));
+
+		// 50 rows per batch plus one sequence call per 50 ids, instead of one statement per row
+		assertTrue(statistics.getPrepareStatementCount() < ROWS / 10,
+			"expected batched statements, got " + statistics.getPrepareStatementCount());
+		assertTrue(batchedNanos < rowByRowNanos,
+			"batched inserts (" + batchedNanos / 1_000_000 + " ms) should be faster than row-by-row inserts ("
+				+ rowByRowNanos / 1_000_000 + " ms)");
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.demoproject.demo.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Outcome handling of keyed submissions, without a database.
+ */
+class PacSubmissionDeduplicatorTests {
+
+	private static final String KEY = "request-key-1";
+
+	private final PacService pacService = mock(PacService.class);
+	private final PacSubmissionDeduplicator deduplicator = new PacSubmissionDeduplicator(
+		pacService, new SimpleMeterRegistry(), Duration.ofMinutes(5), 100);
+
+	@Test
+	void synchronousFailureWithStoredRowIsAReplay() throws Exception {
+		when(pacService.isSubmitted("alice", KEY)).thenReturn(true);
+
+		CompletableFuture<Boolean> replayed = deduplicator.submitOnce("alice", KEY, () -> {
+			throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+		});
+
+		assertTrue(replayed.get(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void synchronousFailureWithoutStoredRowFailsAndForgetsTheKey() throws Exception {
+		when(pacService.isSubmitted("alice", KEY)).thenReturn(false);
+		AtomicInteger writes = new AtomicInteger();
+
+		CompletableFuture<Boolean> failed = deduplicator.submitOnce("alice", KEY, () -> {
+			writes.incrementAndGet();
+			throw new IllegalStateException("database unavailable");
+		});
+
+		ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(1, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, e.getCause());
+
+		CompletableFuture<Boolean> retried = deduplicator.submitOnce("alice", KEY, () -> {
+			writes.incrementAndGet();
+			return CompletableFuture.completedFuture(true);
+		});
+		assertEquals(false, retried.get(1, TimeUnit.SECONDS));
+		assertEquals(2, writes.get());
+	}
+
+}